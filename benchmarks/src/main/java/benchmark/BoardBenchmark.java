@@ -0,0 +1,39 @@
+package benchmark;
+
+import model.Board;
+import org.openjdk.jmh.annotations.*;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the generation of a level, the density of the hazards is the one of the game,
+ * sequential and split between threads
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+
+    @Param({"3", "16", "64", "256", "1024", "4096"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private Board board;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = new Board(size, size);
+    }
+
+    @Benchmark
+    public Board generateItems() {
+        Arrays.fill(board.getCells(), (byte) 0);
+        board.generateItems(parallel);
+        return board;
+    }
+}
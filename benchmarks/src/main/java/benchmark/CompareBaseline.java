@@ -0,0 +1,74 @@
+package benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Class that compares the JSON results of a JMH run with a baseline run.
+ * Usage: CompareBaseline baseline.json results.json [tolerance in percent, 10 by default]
+ * The exit code is 1 when a benchmark is slower than its baseline by more than the tolerance.
+ */
+public class CompareBaseline {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CompareBaseline baseline.json results.json [tolerance in percent]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, Double> baseline = read(args[0]);
+        Map<String, Double> results = read(args[1]);
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, Double> result : results.entrySet()) {
+            Double baselineScore = baseline.get(result.getKey());
+            if (baselineScore == null) {
+                System.out.printf("%-90s %14s %14.3f %9s%n", result.getKey(), "-", result.getValue(), "new");
+                continue;
+            }
+            double change = 100.0 * (result.getValue() - baselineScore) / baselineScore;
+            boolean regression = change > tolerance;
+            if (regression)
+                regressions++;
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%%s%n", result.getKey(), baselineScore, result.getValue(),
+                    change, regression ? "  REGRESSION" : "");
+        }
+
+        System.out.println(regressions + " regression(s) over " + tolerance + "%");
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    /**
+     * Read the scores of a JMH JSON result file. Scores are times per operation, lower is better.
+     * @param file to read
+     * @return the scores by benchmark name and parameters
+     */
+    private static Map<String, Double> read(String file) throws IOException {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        try (Reader reader = Files.newBufferedReader(Paths.get(file))) {
+            JsonArray runs = JsonParser.parseReader(reader).getAsJsonArray();
+            for (JsonElement element : runs) {
+                JsonObject run = element.getAsJsonObject();
+                StringBuilder key = new StringBuilder(run.get("benchmark").getAsString());
+                if (run.has("params")) {
+                    Map<String, String> params = new TreeMap<>();
+                    run.getAsJsonObject("params").entrySet()
+                            .forEach(param -> params.put(param.getKey(), param.getValue().getAsString()));
+                    key.append(params);
+                }
+                scores.put(key.toString(), run.getAsJsonObject("primaryMetric").get("score").getAsDouble());
+            }
+        }
+        return scores;
+    }
+}
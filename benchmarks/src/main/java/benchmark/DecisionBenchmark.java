@@ -0,0 +1,71 @@
+package benchmark;
+
+import controller.PathPlanner;
+import model.Action;
+import model.Board;
+import model.Character;
+import model.Tile;
+import org.openjdk.jmh.annotations.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the decision of the character, on a board of which half of the safe tiles are discovered.
+ * Both benchmarks go through the planner of the parameters. Before every invocation the character moves between
+ * its start tile and a discovered neighbour, so the incremental planner has to repair its search at every call
+ * instead of returning the way it has already found.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DecisionBenchmark {
+
+    @Param({"3", "16", "64", "256", "1024"})
+    public int size;
+    @Param({"0.1", "0.2", "0.3"})
+    public double density;
+    @Param({"bidirectional", "astar", "incremental"})
+    public String planner;
+
+    private Character character;
+    private Tile goal;
+    private Tile start;
+    private Tile neighbour;
+    private boolean moved;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Board board = Levels.create(size, density, Levels.SEED);
+        character = Levels.place(board, Levels.SEED);
+        Levels.explore(character, board.size() / 2);
+        goal = Levels.farthestBoundaryTile(character);
+        character.getDecision().setPathPlanner(PathPlanner.create(planner, character.getSensor()));
+        start = character.getSensor().getTile();
+        neighbour = start;
+        int[] neighbours = new int[4];
+        int count = board.getNeighbours(start.getIndex(), neighbours);
+        for (int i = 0; i < count && neighbour == start; i++) {
+            if (character.getSensor().getDiscovered().get(neighbours[i]))
+                neighbour = board.getTile(neighbours[i]);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void move() {
+        moved = !moved;
+        character.getSensor().setTile(moved ? neighbour : start);
+    }
+
+    @Benchmark
+    public List<Action> findPath() {
+        return character.getDecision().bidirectionnalSearch(goal);
+    }
+
+    @Benchmark
+    public List<Action> makeRule() {
+        return character.getDecision().makeRule();
+    }
+}
@@ -0,0 +1,50 @@
+package benchmark;
+
+import controller.BidirectionalSearch;
+import model.Action;
+import model.Board;
+import model.Character;
+import model.Tile;
+import org.openjdk.jmh.annotations.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the effector, which moves the character to the last discovered tile and back to its start tile
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EffectorBenchmark {
+
+    @Param({"3", "16", "64", "256", "1024"})
+    public int size;
+    @Param({"0.1", "0.2", "0.3"})
+    public double density;
+
+    private Character character;
+    private List<Action> actions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Board board = Levels.create(size, density, Levels.SEED);
+        character = Levels.place(board, Levels.SEED);
+        Tile lastTile = Levels.explore(character, board.size() / 2);
+        List<Tile> way = new BidirectionalSearch(character.getSensor()).findPath(character.getSensor().getTile(), lastTile);
+        List<Tile> wayBack = new ArrayList<>(way);
+        Collections.reverse(wayBack);
+        actions = new ArrayList<>(character.getDecision().convertPathToActions(way));
+        actions.addAll(character.getDecision().convertPathToActions(wayBack));
+    }
+
+    @Benchmark
+    public int doActions() {
+        character.getEffector().doActions(character, actions);
+        return character.getDecision().getEvaluation();
+    }
+}
@@ -0,0 +1,44 @@
+package benchmark;
+
+import model.Board;
+import model.LevelFile;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the loading of a level from a level file, to compare with its generation by BoardBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LevelFileBenchmark {
+
+    @Param({"64", "1024", "4096"})
+    public int size;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Board board = new Board(size, size, Levels.SEED);
+        board.generateItems();
+        file = Files.createTempFile("level", ".mmlv");
+        LevelFile.save(board, file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public LevelFile load() throws IOException {
+        return LevelFile.load(file);
+    }
+}
@@ -0,0 +1,115 @@
+package benchmark;
+
+import model.Board;
+import model.Character;
+import model.Tile;
+import java.util.Random;
+
+/**
+ * Class that builds reproducible levels for the benchmarks
+ */
+final class Levels {
+    static final long SEED = 42L;
+
+    private Levels() {
+    }
+
+    /**
+     * Create a square board whose hazards are placed with a fixed seed
+     * @param size of the board
+     * @param density probability for a tile to hold a monster or a crevasse
+     * @param seed of the level
+     * @return the board
+     */
+    static Board create(int size, double density, long seed) {
+        Board board = new Board(size, size);
+        Random random = new Random(seed);
+        int[] neighbours = new int[4];
+        for (int cell = 0; cell < board.size(); cell++) {
+            if (random.nextDouble() < density) {
+                boolean crevasse = random.nextBoolean();
+                board.setFlag(cell, crevasse ? Board.CREVASSE : Board.MONSTER, true);
+                int count = board.getNeighbours(cell, neighbours);
+                for (int i = 0; i < count; i++)
+                    board.setFlag(neighbours[i], crevasse ? Board.WINDY : Board.BAD_SMELLING, true);
+            }
+        }
+        randomEmptyTile(board, random).setPortal(true);
+        return board;
+    }
+
+    /**
+     * Place a character on a board with a fixed seed
+     * @param board on which the character plays
+     * @param seed of the start tile
+     * @return the character
+     */
+    static Character place(Board board, long seed) {
+        return new Character(board, randomEmptyTile(board, new Random(seed)));
+    }
+
+    /**
+     * Discover the safe tiles reachable from the start tile in breadth-first order, like a character which never dies
+     * @param character which explores the board
+     * @param maxTiles number of tiles to discover
+     * @return the last discovered tile
+     */
+    static Tile explore(Character character, int maxTiles) {
+        Board board = character.getSensor().getBoard();
+        Tile start = character.getSensor().getTile();
+        int[] queue = new int[board.size()];
+        boolean[] queued = new boolean[board.size()];
+        int[] neighbours = new int[4];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start.getIndex();
+        queued[start.getIndex()] = true;
+        Tile last = start;
+        while (head < tail && head < maxTiles) {
+            last = board.getTile(queue[head++]);
+            character.getSensor().setTile(last);
+            character.getSensor().update();
+            int count = board.getNeighbours(last.getIndex(), neighbours);
+            for (int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                if (!queued[neighbour] && !board.hasFlag(neighbour, Board.MONSTER | Board.CREVASSE)) {
+                    queued[neighbour] = true;
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+        character.getSensor().setTile(start);
+        return last;
+    }
+
+    /**
+     * Get the boundary tile which is the farthest from the character
+     * @param character which explored the board
+     * @return the farthest boundary tile
+     */
+    static Tile farthestBoundaryTile(Character character) {
+        Board board = character.getSensor().getBoard();
+        Tile start = character.getSensor().getTile();
+        Tile farthest = null;
+        int farthestDistance = -1;
+        for (int cell = 0; cell < board.size(); cell++) {
+            if (character.getSensor().getBoundaryTiles().contains(cell)) {
+                Tile tile = board.getTile(cell);
+                int distance = Math.abs(tile.getX() - start.getX()) + Math.abs(tile.getY() - start.getY());
+                if (distance > farthestDistance) {
+                    farthest = tile;
+                    farthestDistance = distance;
+                }
+            }
+        }
+        return farthest;
+    }
+
+    private static Tile randomEmptyTile(Board board, Random random) {
+        Tile tile;
+        do {
+            tile = board.getTile(random.nextInt(board.getWidth()), random.nextInt(board.getHeight()));
+        } while (tile.hasItem());
+        return tile;
+    }
+}
@@ -0,0 +1,71 @@
+package benchmark;
+
+import model.Board;
+import model.SearchTree;
+import model.Tile;
+import org.openjdk.jmh.annotations.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the search of a commun node between two search trees grown from opposite corners of a board,
+ * which only meet on the anti-diagonal. The search is quadratic, so the sizes stay small.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchTreeBenchmark {
+
+    @Param({"3", "8", "16", "32", "64"})
+    public int size;
+
+    private SearchTree startTree;
+    private SearchTree goalTree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Board board = new Board(size, size);
+        startTree = grow(board, board.getTile(0, 0), size - 1);
+        goalTree = grow(board, board.getTile(size - 1, size - 1), size - 1);
+    }
+
+    @Benchmark
+    public Tile hasCommunNode() {
+        return startTree.hasCommunNode(goalTree);
+    }
+
+    /**
+     * Grow a breadth-first search tree from a tile
+     * @param board of the tile
+     * @param root of the tree
+     * @param depth of the tree
+     * @return the tree
+     */
+    private static SearchTree grow(Board board, Tile root, int depth) {
+        SearchTree tree = new SearchTree(root);
+        boolean[] visited = new boolean[board.size()];
+        visited[root.getIndex()] = true;
+        List<SearchTree> level = new ArrayList<>();
+        level.add(tree);
+        for (int d = 0; d < depth; d++) {
+            List<SearchTree> nextLevel = new ArrayList<>();
+            for (SearchTree leaf : level) {
+                List<Tile> sons = new ArrayList<>();
+                for (Tile neighbour : board.getNeighbours(leaf.getNode())) {
+                    if (!visited[neighbour.getIndex()]) {
+                        visited[neighbour.getIndex()] = true;
+                        sons.add(neighbour);
+                    }
+                }
+                leaf.addSons(sons);
+                nextLevel.addAll(leaf.getSonTrees());
+            }
+            level = nextLevel;
+        }
+        return tree;
+    }
+}
@@ -0,0 +1,51 @@
+package benchmark;
+
+import controller.Sensor;
+import model.Board;
+import model.Character;
+import model.Tile;
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the sensor of the character, on a board of which half of the safe tiles are discovered
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SensorBenchmark {
+
+    @Param({"3", "16", "64", "256", "1024"})
+    public int size;
+    @Param({"0.1", "0.2", "0.3"})
+    public double density;
+
+    private Sensor sensor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Board board = Levels.create(size, density, Levels.SEED);
+        Character character = Levels.place(board, Levels.SEED);
+        Tile lastTile = Levels.explore(character, board.size() / 2);
+        sensor = character.getSensor();
+        sensor.setTile(lastTile);
+    }
+
+    @Benchmark
+    public void update() {
+        sensor.update();
+    }
+
+    @Benchmark
+    public void computeKnowledge() {
+        sensor.computeKnowledge();
+    }
+
+    @Benchmark
+    public void computeProbabilities() {
+        sensor.computeProbabilities();
+    }
+}
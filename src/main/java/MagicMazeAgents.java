@@ -0,0 +1,46 @@
+import controller.Exploration;
+import controller.Simulation;
+import model.Board;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Class that explores the same level with more and more characters, each on its own thread,
+ * and prints how the throughput of the exploration scales with the number of characters.
+ * The discoveries are shared unless the magicmaze.shared system property is false.
+ * Usage: MagicMazeAgents [size] [max characters] [max steps per character] [seed]
+ */
+public class MagicMazeAgents {
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 512;
+        int maxCharacters = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int maxSteps = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : new SplittableRandom().nextLong();
+        System.out.printf("Exploring a level %dx%d with seed %d, at most %d steps per character%n",
+                size, size, seed, maxSteps);
+        System.out.println("characters      ms    steps  steps/s  blocked  discovered  discovered/s  dead  portal");
+
+        for (int characters = 1; characters <= maxCharacters; characters = characters < maxCharacters
+                ? Math.min(characters * 2, maxCharacters) : characters + 1) {
+            Exploration exploration = new Exploration(new Board(size, size, seed), characters);
+            long duration = exploration.run(maxSteps);
+            long steps = 0;
+            long blocked = 0;
+            int dead = 0;
+            int portal = 0;
+            for (int i = 0; i < characters; i++) {
+                steps += exploration.getSteps()[i];
+                blocked += exploration.getBlockedSteps()[i];
+                if (exploration.getOutcomes()[i] == Simulation.Outcome.DEAD)
+                    dead++;
+                else if (exploration.getOutcomes()[i] == Simulation.Outcome.NEXT_LEVEL)
+                    portal++;
+            }
+            int discovered = exploration.countDiscovered();
+            double seconds = duration / 1e9;
+            System.out.printf("%10d %7.0f %8d %8.0f %8d %11d %13.0f %5d %7d%n", characters, duration / 1e6, steps,
+                    steps / seconds, blocked, discovered, discovered / seconds, dead, portal);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
 import lombok.Getter;
+import metrics.Metrics;
 import java.io.IOException;
 import java.util.Objects;
 
@@ -36,4 +37,11 @@ public class MagicMazeApplication extends Application {
         stage.getIcons().add(new Image("images/maze.png"));
         stage.show();
     }
+
+    @Override
+    public void stop() throws IOException {
+        if (mainWindowController != null)
+            mainWindowController.close();
+        Metrics.exportConfiguredCsv();
+    }
 }
@@ -0,0 +1,42 @@
+import controller.BatchStatistics;
+import controller.Episode;
+import metrics.Metrics;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class that plays many games in parallel without any view and prints their statistics.
+ * Usage: MagicMazeBatch [episodes] [seed] [threads] [max steps per episode]
+ */
+public class MagicMazeBatch {
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException, IOException {
+        int episodes = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int maxSteps = args.length > 3 ? Integer.parseInt(args[3]) : 100_000;
+        System.out.printf("Playing %d episodes with seed %d on %d threads%n", episodes, seed, threads);
+
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newWorkStealingPool(threads);
+        List<Future<Episode>> futures = new ArrayList<>(episodes);
+        SplittableRandom seeds = new SplittableRandom(seed);
+        for (int i = 0; i < episodes; i++) {
+            Episode episode = new Episode(seeds.nextLong());
+            futures.add(pool.submit(() -> episode.play(maxSteps)));
+        }
+
+        BatchStatistics statistics = new BatchStatistics();
+        for (Future<Episode> future : futures)
+            statistics.add(future.get());
+        pool.shutdown();
+        statistics.print(System.out, System.nanoTime() - start);
+        Metrics.exportConfiguredCsv();
+    }
+}
@@ -0,0 +1,41 @@
+import model.Board;
+import model.LevelFile;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Class that generates a level, writes it into a level file and loads it again, printing the time of every stage.
+ * The file can then be given to the game with the magicmaze.level system property.
+ * Usage: MagicMazeLevel file [size] [seed]
+ */
+public class MagicMazeLevel {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: MagicMazeLevel file [size] [seed]");
+            System.exit(1);
+        }
+        Path file = Paths.get(args[0]);
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 4096;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : new SplittableRandom().nextLong();
+
+        long start = System.nanoTime();
+        Board board = new Board(size, size, seed, false);
+        board.generateItems();
+        long generated = System.nanoTime();
+        LevelFile.save(board, file);
+        long saved = System.nanoTime();
+        LevelFile level = LevelFile.load(file);
+        long loaded = System.nanoTime();
+
+        System.out.printf("Level %dx%d with seed %d, %d bytes%n", size, size, seed, Files.size(file));
+        System.out.printf("Generated in %.1f ms, saved in %.1f ms, loaded in %.1f ms%n",
+                (generated - start) / 1e6, (saved - generated) / 1e6, (loaded - saved) / 1e6);
+        if (!Arrays.equals(board.getCells(), level.getBoard().getCells()))
+            throw new IllegalStateException("The loaded level differs from the saved one");
+    }
+}
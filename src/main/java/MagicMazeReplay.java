@@ -0,0 +1,50 @@
+import controller.EpisodeReplay;
+import controller.Simulation;
+import model.Board;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Class that replays a recorded game without any view, from a step until its end, and prints where it ends.
+ * The game is restarted after a death which is followed by more records, as the window does when the player
+ * chooses to play again.
+ * Usage: MagicMazeReplay file [first step]
+ */
+public class MagicMazeReplay {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: MagicMazeReplay file [first step]");
+            System.exit(1);
+        }
+        try (EpisodeReplay replay = new EpisodeReplay(Paths.get(args[0]))) {
+            long firstStep = args.length > 1 ? Long.parseLong(args[1]) : 0;
+            System.out.printf("Replaying %d steps on %d levels with seed %d from step %d%n",
+                    replay.getSteps(), replay.getLevels(), replay.getSeed(), firstStep);
+
+            long start = System.nanoTime();
+            Simulation simulation = new Simulation(new Board(replay.getHeight(), replay.getWidth(), replay.getSeed(), replay.isChunked()));
+            replay.seek(simulation, firstStep);
+            long seekNanos = System.nanoTime() - start;
+
+            Simulation.Outcome outcome = Simulation.Outcome.MOVED;
+            int restarts = 0;
+            while (outcome != Simulation.Outcome.FINISHED) {
+                outcome = simulation.step();
+                if (outcome == Simulation.Outcome.DEAD) {
+                    if (!replay.hasNext())
+                        break;
+                    simulation.restart();
+                    restarts++;
+                }
+            }
+            long nanos = System.nanoTime() - start;
+
+            Board board = simulation.getBoard();
+            System.out.printf("Jump to step %d in %.1f ms, end at step %d in %.1f ms%n",
+                    firstStep, seekNanos / 1e6, replay.getStep(), nanos / 1e6);
+            System.out.printf("Outcome: %s on a %dx%d level after %d restarts, evaluation %d%n", outcome,
+                    board.getWidth(), board.getHeight(), restarts, simulation.getCharacter().getDecision().getEvaluation());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package controller;
+
+import model.BitGrid;
+import model.Board;
+import model.IntGrid;
+import model.Tile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class that implements a risk-weighted A* search between two tiles.
+ * The search goes through the tiles discovered by the sensor and its boundary tiles. Entering a tile costs one move
+ * plus its probability of hazard, as known by the sensor, times the penalty of a death,
+ * and the heuristic is the Manhattan distance.
+ * As the character only knows the tiles it stands on, the returned way stops on its first undiscovered tile.
+ * The costs and the parents of the visited tiles are stored in the order the tiles are visited, a grid chunked
+ * like the board giving the place of every tile in this order, so a search only takes memory for the tiles it visits.
+ */
+public class AStarSearch implements PathPlanner {
+
+    private final Sensor sensor;
+    private Board board;
+    private IndexedMinHeap openTiles;
+    /**
+     * Place of the tiles in the visited tiles, only valid if the visited tile at this place is the same tile
+     */
+    private IntGrid places;
+    private int[] visitedCells = new int[16];
+    private double[] costs = new double[16];
+    private int[] parents = new int[16];
+    private int visitedCount;
+    private final int[] neighbours = new int[4];
+
+    /**
+     * AStarSearch constructor
+     * @param sensor whose knowledge is searched
+     */
+    public AStarSearch(Sensor sensor) {
+        this.sensor = sensor;
+    }
+
+    /**
+     * Find the safest way between two tiles
+     * @param start tile of the way
+     * @param goal tile of the way
+     * @return the tiles of the way from start to its first undiscovered tile, or an empty list if there is no way
+     * or if the thread is interrupted
+     */
+    @Override
+    public List<Tile> findPath(Tile start, Tile goal) {
+        board = sensor.getBoard();
+        BitGrid discoveredTiles = sensor.getDiscovered();
+        BitGrid boundaryTiles = sensor.getFrontier();
+        if (openTiles == null || !openTiles.fits(board)) {
+            openTiles = new IndexedMinHeap(board);
+            places = new IntGrid(board, 0);
+        } else {
+            openTiles.clear();
+        }
+        visitedCount = 0;
+
+        double deathPenalty = 10.0 * board.getHeight() * board.getWidth();
+        int startCell = start.getIndex();
+        int goalCell = goal.getIndex();
+        visit(startCell, -1, 0);
+        openTiles.push(startCell, heuristic(startCell, goal), heuristic(startCell, goal));
+
+        boolean wayFound = false;
+        while (!openTiles.isEmpty()) {
+            if (Thread.currentThread().isInterrupted())
+                return new ArrayList<>();
+            int cell = openTiles.poll();
+            double cellCost = costs[place(cell)];
+            if (cell == goalCell) {
+                wayFound = true;
+                break;
+            }
+
+            int count = board.getNeighbours(cell, neighbours);
+            for (int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                boolean discovered = discoveredTiles.get(neighbour);
+                if (!discovered && !boundaryTiles.get(neighbour) && neighbour != goalCell)
+                    continue;
+
+                double risk = discovered ? 0 : sensor.getProbability(neighbour);
+                double cost = cellCost + 1 + risk * deathPenalty;
+                int place = place(neighbour);
+                if (place < 0 || cost < costs[place]) {
+                    visit(neighbour, cell, cost);
+                    double heuristic = heuristic(neighbour, goal);
+                    openTiles.push(neighbour, cost + heuristic, heuristic);
+                }
+            }
+        }
+
+        List<Tile> path = new ArrayList<>();
+        if (!wayFound)
+            return path;
+        for (int cell = goalCell; cell != -1; cell = parents[place(cell)])
+            path.add(board.getTile(cell));
+        Collections.reverse(path);
+
+        // Stop the way on its first undiscovered tile
+        for (int i = 1; i < path.size(); i++) {
+            if (!discoveredTiles.get(path.get(i).getIndex()))
+                return new ArrayList<>(path.subList(0, i + 1));
+        }
+        return path;
+    }
+
+    /**
+     * Get the place of a tile in the tiles visited by the search
+     * @param cell index of the tile
+     * @return place of the tile, or -1 if the search has not visited it
+     */
+    private int place(int cell) {
+        int place = places.get(cell);
+        return place < visitedCount && visitedCells[place] == cell ? place : -1;
+    }
+
+    private void visit(int cell, int parent, double cost) {
+        int place = place(cell);
+        if (place < 0) {
+            if (visitedCount == visitedCells.length) {
+                visitedCells = Arrays.copyOf(visitedCells, visitedCount * 2);
+                costs = Arrays.copyOf(costs, visitedCount * 2);
+                parents = Arrays.copyOf(parents, visitedCount * 2);
+            }
+            place = visitedCount++;
+            visitedCells[place] = cell;
+            places.set(cell, place);
+        }
+        parents[place] = parent;
+        costs[place] = cost;
+    }
+
+    /**
+     * Manhattan distance between a cell and the goal
+     */
+    private double heuristic(int cell, Tile goal) {
+        return Math.abs(cell / board.getHeight() - goal.getX()) + Math.abs(cell % board.getHeight() - goal.getY());
+    }
+}
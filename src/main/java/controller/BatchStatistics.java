@@ -0,0 +1,66 @@
+package controller;
+
+import lombok.Getter;
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Class that aggregates the results of many episodes
+ */
+public class BatchStatistics {
+
+    @Getter
+    private int episodes;
+    @Getter
+    private long steps;
+    private long evaluationSum;
+    private int minEvaluation = Integer.MAX_VALUE;
+    private int maxEvaluation = Integer.MIN_VALUE;
+    private long levelsSum;
+    private final Map<Integer, Integer> levelsReached = new TreeMap<>();
+    private final Map<Integer, long[]> stepsPerLevel = new TreeMap<>();
+    private final Map<Episode.End, Integer> ends = new EnumMap<>(Episode.End.class);
+
+    /**
+     * Add the results of an episode
+     * @param episode which has been played
+     */
+    public void add(Episode episode) {
+        episodes++;
+        steps += episode.getSteps();
+        evaluationSum += episode.getEvaluation();
+        minEvaluation = Math.min(minEvaluation, episode.getEvaluation());
+        maxEvaluation = Math.max(maxEvaluation, episode.getEvaluation());
+        levelsSum += episode.getLevelsReached();
+        levelsReached.merge(episode.getLevelsReached(), 1, Integer::sum);
+        for (int level = 0; level < episode.getStepsPerLevel().size(); level++) {
+            long[] levelSteps = stepsPerLevel.computeIfAbsent(level + 1, key -> new long[2]);
+            levelSteps[0] += episode.getStepsPerLevel().get(level);
+            levelSteps[1]++;
+        }
+        ends.merge(episode.getEnd(), 1, Integer::sum);
+    }
+
+    /**
+     * Print the statistics
+     * @param out stream to print to
+     * @param elapsedNanos duration of the batch
+     */
+    public void print(PrintStream out, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        out.printf("Episodes: %d in %.2f s (%.0f episodes/s)%n", episodes, seconds, episodes / seconds);
+        out.printf("Steps: %d (%.0f steps/s)%n", steps, steps / seconds);
+        if (episodes == 0)
+            return;
+        out.printf("Evaluation: mean %.1f, min %d, max %d%n", (double) evaluationSum / episodes, minEvaluation, maxEvaluation);
+        out.printf("Levels reached: mean %.2f%n", (double) levelsSum / episodes);
+        levelsReached.forEach((level, count) -> out.printf("  level %d: %d episodes%n", level, count));
+        out.println("Steps per level:");
+        stepsPerLevel.forEach((level, levelSteps) ->
+                out.printf("  level %d: mean %.1f over %d episodes%n", level, (double) levelSteps[0] / levelSteps[1], levelSteps[1]));
+        out.println("End of the episodes:");
+        ends.forEach((end, count) -> out.printf("  %s: %d (%.1f%%)%n", end, count, 100.0 * count / episodes));
+    }
+}
@@ -0,0 +1,142 @@
+package controller;
+
+import model.BitGrid;
+import model.Board;
+import model.IntGrid;
+import model.Tile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class that implements the bidirectional breadth-first search between two tiles through the tiles discovered
+ * by the sensor, so a character never plans through the tiles only the other characters have discovered.
+ * Both searches use int queues, visited bitsets and parent grids indexed by cell, so a search is O(V + E).
+ * The queues grow with the visited tiles and the grids are allocated by pages or by chunks around them,
+ * so a search on a large board only takes memory for the part of the board it visits.
+ */
+public class BidirectionalSearch implements PathPlanner {
+
+    /**
+     * One direction of the search
+     */
+    private static class Side {
+        private int[] queue = new int[16];
+        private int head;
+        private int tail;
+        private BitGrid visited;
+        private IntGrid parent;
+
+        private void reset(Board board) {
+            if (parent == null || !parent.fits(board)) {
+                visited = new BitGrid(board.getHeight(), board.getWidth());
+                parent = new IntGrid(board, -1);
+            } else {
+                visited.clear();
+            }
+            head = 0;
+            tail = 0;
+        }
+
+        private boolean isVisited(int cell) {
+            return visited.get(cell);
+        }
+
+        private void visit(int cell, int from) {
+            visited.set(cell);
+            parent.set(cell, from);
+            if (tail == queue.length)
+                queue = Arrays.copyOf(queue, tail * 2);
+            queue[tail++] = cell;
+        }
+
+        private boolean isExhausted() {
+            return head == tail;
+        }
+
+        private int frontierSize() {
+            return tail - head;
+        }
+    }
+
+    private final Sensor sensor;
+    private Board board;
+    private final Side startSide = new Side();
+    private final Side goalSide = new Side();
+    private final int[] neighbours = new int[4];
+
+    /**
+     * BidirectionalSearch constructor
+     * @param sensor whose discovered tiles can be walked through
+     */
+    public BidirectionalSearch(Sensor sensor) {
+        this.sensor = sensor;
+    }
+
+    /**
+     * Find a shortest way between two tiles, going only through the tiles discovered by the sensor
+     * @param start tile of the way
+     * @param goal tile of the way
+     * @return the tiles of the way from start to goal, or an empty list if there is no way
+     * or if the thread is interrupted
+     */
+    @Override
+    public List<Tile> findPath(Tile start, Tile goal) {
+        board = sensor.getBoard();
+        startSide.reset(board);
+        goalSide.reset(board);
+        startSide.visit(start.getIndex(), -1);
+        goalSide.visit(goal.getIndex(), -1);
+
+        int communCell = start.getIndex() == goal.getIndex() ? start.getIndex() : -1;
+        while (communCell < 0 && !startSide.isExhausted() && !goalSide.isExhausted()) {
+            if (Thread.currentThread().isInterrupted())
+                return new ArrayList<>();
+            // Always propagate the smallest frontier
+            if (startSide.frontierSize() <= goalSide.frontierSize())
+                communCell = propagate(startSide, goalSide);
+            else
+                communCell = propagate(goalSide, startSide);
+        }
+
+        List<Tile> path = new ArrayList<>();
+        if (communCell < 0)
+            return path;
+
+        // Link the two ways through the commun cell
+        for (int cell = communCell; cell != -1; cell = startSide.parent.get(cell))
+            path.add(board.getTile(cell));
+        Collections.reverse(path);
+        for (int cell = goalSide.parent.get(communCell); cell != -1; cell = goalSide.parent.get(cell))
+            path.add(board.getTile(cell));
+        return path;
+    }
+
+    /**
+     * Expand one level of a side of the search
+     * @param side to expand
+     * @param other side of the search
+     * @return the cell where the two sides meet, or -1 if they do not meet yet
+     */
+    private int propagate(Side side, Side other) {
+        BitGrid discovered = sensor.getDiscovered();
+        int levelEnd = side.tail;
+        while (side.head < levelEnd) {
+            int cell = side.queue[side.head++];
+            int count = board.getNeighbours(cell, neighbours);
+            for (int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                if (side.isVisited(neighbour))
+                    continue;
+                if (other.isVisited(neighbour)) {
+                    side.parent.set(neighbour, cell);
+                    return neighbour;
+                }
+                if (discovered.get(neighbour))
+                    side.visit(neighbour, cell);
+            }
+        }
+        return -1;
+    }
+}
@@ -2,11 +2,12 @@ package controller;
 
 import lombok.Getter;
 import lombok.Setter;
+import metrics.Metrics;
+import metrics.Phase;
 import model.Action;
-import model.SearchTree;
+import model.Board;
 import model.Tile;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Class that represents the decision-making of the character
@@ -17,9 +18,19 @@ public class Decision {
     private Sensor sensor;
     @Getter @Setter
     private int evaluation;
+    @Getter @Setter
+    private PathPlanner pathPlanner;
+    @Getter @Setter
+    private TargetSelector targetSelector;
 
     public Decision(Sensor sensor) {
         this.sensor = sensor;
+        this.pathPlanner = PathPlanner.fromConfiguration(sensor);
+        this.targetSelector = TargetSelector.fromConfiguration(sensor);
+        // The choice of the selector would be computed then thrown away at every step
+        if (pathPlanner.choosesGoal() && targetSelector instanceof MonteCarloSelector)
+            throw new IllegalArgumentException("A path planner which chooses its own goal can not be used"
+                    + " with the montecarlo target selector");
         evaluation = 0;
     }
 
@@ -32,61 +43,12 @@ public class Decision {
     }
 
     /**
-     * This method implements the bidirectional search algorithm
+     * This method finds the way to a goal with the path planner of the decision, bidirectional by default
      * @param goal the goal tile
-     * @return TreeMap with the evaluation and the list of actions
+     * @return the list of actions to reach the goal
      */
     public List<Action> bidirectionnalSearch(Tile goal) {
-        Tile communTile = null;
-        LinkedHashSet<Tile> alreadySeenStart = new LinkedHashSet<>();
-        LinkedHashSet<Tile> alreadySeenGoal = new LinkedHashSet<>();
-        LinkedHashSet<SearchTree> leafStart = new LinkedHashSet<>();
-        LinkedHashSet<SearchTree> leafGoal = new LinkedHashSet<>();
-        SearchTree wayStart = new SearchTree(sensor.getTile());
-        SearchTree wayGoal = new SearchTree(goal);
-        alreadySeenStart.add(sensor.getTile());
-        alreadySeenGoal.add(goal);
-        boolean wayFinded = false;
-        while (!wayFinded) {
-            // Propagation of start and final tree
-            propagate(wayStart);
-            propagate(wayGoal);
-
-            // Update of the forbiddenStart list and wayStart tree
-            leafStart.clear();
-            leafStart.addAll(wayStart.getLeaf());
-            leafGoal.clear();
-            leafGoal.addAll(wayGoal.getLeaf());
-            for (SearchTree leaf : leafStart)
-                alreadySeenStart.add(leaf.getNode());
-            for (SearchTree leaf : leafGoal) {
-                alreadySeenGoal.add(leaf.getNode());
-            }
-            communTile = wayStart.hasCommunNode(wayGoal);
-            if (communTile != null)
-                wayFinded = true;
-        }
-
-        // Get the way to the commun tile to link the two trees
-        List<Tile> firstPart = wayStart.getWayTo(communTile);
-        List<Tile> secondPart = wayGoal.getWayTo(communTile);
-        Collections.reverse(secondPart);
-        secondPart.remove(0);
-        firstPart.addAll(secondPart);
-        return convertPathToActions(firstPart);
-    }
-
-    /**
-     * This method is used to propagate the search tree
-     * @param tree the search tree
-     */
-    public void propagate(SearchTree tree) {
-        List<SearchTree> leafs = tree.getLeaf();
-        leafs.forEach(leaf -> {
-            List<Tile> neighbours = sensor.getBoard().getNeighbours(leaf.getNode()).stream()
-                    .filter((neighbour -> sensor.getDiscoveredTiles().contains(neighbour))).collect(Collectors.toList());
-            leaf.addSons(neighbours);
-        });
+        return convertPathToActions(pathPlanner.findPath(sensor.getTile(), goal));
     }
 
     /**
@@ -95,27 +57,26 @@ public class Decision {
      * @return TreeMap with the evaluation and the list of actions
      */
     public List<Action> convertPathToActions(List<Tile> path) {
-        List<Double> monsterProbabilities = new ArrayList<>(Arrays.asList(0.2, 0.5, 0.7, 0.9));
         List<Action> actionsList = new ArrayList<>();
         for (int i = 0; i < path.size() - 1; i++) {
-            double probability = path.get(i + 1).getProbability();
+            boolean mayBeMonster = sensor.getMonsterProbability(path.get(i + 1).getIndex()) > 0;
             if (path.get(i).getX() < path.get(i + 1).getX()) {
-                if (monsterProbabilities.contains(probability) && i == path.size() - 2) {
+                if (mayBeMonster && i == path.size() - 2) {
                     actionsList.add(Action.THROW_RIGHT);
                 }
                 actionsList.add(Action.MOVE_RIGHT);
             } else if (path.get(i).getX() > path.get(i + 1).getX()) {
-                if (monsterProbabilities.contains(probability) && i == path.size() - 2) {
+                if (mayBeMonster && i == path.size() - 2) {
                     actionsList.add(Action.THROW_LEFT);
                 }
                 actionsList.add(Action.MOVE_LEFT);
             } else if (path.get(i).getY() < path.get(i + 1).getY()) {
-                if (monsterProbabilities.contains(probability) && i == path.size() - 2) {
+                if (mayBeMonster && i == path.size() - 2) {
                     actionsList.add(Action.THROW_DOWN);
                 }
                 actionsList.add(Action.MOVE_DOWN);
             } else if (path.get(i).getY() > path.get(i + 1).getY()) {
-                if (monsterProbabilities.contains(probability) && i == path.size() - 2) {
+                if (mayBeMonster && i == path.size() - 2) {
                     actionsList.add(Action.THROW_UP);
                 }
                 actionsList.add(Action.MOVE_UP);
@@ -126,14 +87,26 @@ public class Decision {
     }
 
     /**
-     * Method used to get the list of actions to do
+     * Method used to get the list of actions to do, the tile is chosen by the target selector
+     * and the way to it is found by the path planner, or both by the path planner if it chooses its own goal
      * @return the list of actions
      */
     public List<Action> makeRule() {
-        TreeMap<Double, List<Tile>> boundaryTiles = sensor.getBoundaryTiles();
-        List<Tile> tiles = boundaryTiles.firstEntry().getValue();
-        Random rand = new Random();
-        return bidirectionnalSearch(tiles.get(rand.nextInt(tiles.size())));
+        Board board = sensor.getBoard();
+        long start;
+        Tile goal = null;
+        if (!pathPlanner.choosesGoal()) {
+            start = Metrics.start();
+            goal = targetSelector.selectTarget();
+            if (goal == null)
+                return new ArrayList<>();
+            Metrics.record(Phase.TARGET_SELECTION, board.getWidth(), board.getHeight(), start);
+        }
+
+        start = Metrics.start();
+        List<Tile> path = pathPlanner.findPath(sensor.getTile(), goal);
+        Metrics.record(Phase.SEARCH, board.getWidth(), board.getHeight(), start);
+        return convertPathToActions(path);
     }
 
     /**
@@ -1,8 +1,13 @@
 package controller;
 
+import metrics.Metrics;
+import metrics.Phase;
 import model.Action;
+import model.Board;
 import model.Character;
+import lombok.Getter;
 import model.Tile;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -11,61 +16,79 @@ import java.util.List;
 public class Effector {
 
     private Sensor sensor;
+    @Getter
+    private final List<Tile> trail = new ArrayList<>();
+    @Getter
+    private boolean blocked;
+    private final int[] neighbours = new int[4];
+    private final int[] monsterNeighbours = new int[4];
 
     public Effector(Sensor sensor) {
         this.sensor = sensor;
     }
 
     /**
-     * Method that moves the character through the list of actions
+     * Method that moves the character through the list of actions.
+     * The actions are applied in a batch of the board, so every tile is redrawn once at the end of the list,
+     * and the tiles the character goes through are kept in the trail. A board without listener, like the board
+     * of an exploration shared by several characters, has nothing to redraw and is not batched, so the effectors
+     * of the characters never touch the state of the batch.
+     * The list stops at a move onto the tile of another character, which the decision did not plan for,
+     * and the effector stays blocked until the next list.
      * @param character to move
      * @param actions to perform
      */
     public void doActions(Character character, List<Action> actions) {
-        actions.forEach(action -> doAction(character, action));
+        Board board = sensor.getBoard();
+        trail.clear();
+        trail.add(sensor.getTile());
+        blocked = false;
+        long start = Metrics.start();
+        boolean batched = board.getListener() != null;
+        if (batched)
+            board.beginBatch();
+        try {
+            for (Action action : actions) {
+                if (!doAction(character, action)) {
+                    blocked = true;
+                    break;
+                }
+            }
+        } finally {
+            if (batched)
+                board.endBatch();
+        }
+        Metrics.record(Phase.ACTIONS, board.getWidth(), board.getHeight(), start);
     }
 
     /**
      * Method that moves the character with an action
      * @param character to move
      * @param action to perform
+     * @return false if the character could not move because another character stands on the tile
      */
-    private void doAction(Character character, Action action) {
+    private boolean doAction(Character character, Action action) {
+        Board board = sensor.getBoard();
         Tile oldTile = character.getSensor().getTile();
         int oldX = oldTile.getXPosition();
         int oldY = oldTile.getYPosition();
+        boolean done = true;
         switch (action) {
             case MOVE_UP:
-                if(oldY > 0) {
-                    oldTile.setCharacter(false);
-                    oldTile.draw();
-                    moveUp();
-                    character.getDecision().updateEvaluation(-1);
-                }
+                if (oldY > 0)
+                    done = move(character, oldTile, board.getTile(oldX, oldY - 1));
                 break;
             case MOVE_DOWN:
-                if(oldTile.getY() < sensor.getBoard().getHeight() - 1) {
-                    oldTile.setCharacter(false);
-                    oldTile.draw();
-                    moveDown();
-                    character.getDecision().updateEvaluation(-1);
-                }
+                if (oldY < board.getHeight() - 1)
+                    done = move(character, oldTile, board.getTile(oldX, oldY + 1));
                 break;
             case MOVE_LEFT:
-                if (oldX > 0) {
-                    oldTile.setCharacter(false);
-                    oldTile.draw();
-                    moveLeft();
-                    character.getDecision().updateEvaluation(-1);
-                }
+                if (oldX > 0)
+                    done = move(character, oldTile, board.getTile(oldX - 1, oldY));
                 break;
             case MOVE_RIGHT:
-                if (oldX < sensor.getBoard().getWidth()-1) {
-                    oldTile.setCharacter(false);
-                    oldTile.draw();
-                    moveRight();
-                    character.getDecision().updateEvaluation(-1);
-                }
+                if (oldX < board.getWidth() - 1)
+                    done = move(character, oldTile, board.getTile(oldX + 1, oldY));
                 break;
             case THROW_UP:
                 throwUp();
@@ -85,7 +108,29 @@ public class Effector {
                 break;
         }
         character.getSensor().getTile().setCharacter(true);
-        character.getSensor().getTile().draw();
+        board.draw(character.getSensor().getTile());
+        if (character.getSensor().getTile() != trail.get(trail.size() - 1))
+            trail.add(character.getSensor().getTile());
+        return done;
+    }
+
+    /**
+     * Method that moves the character to a neighbour tile, if no other character stands on it.
+     * The tile is taken with an atomic change of its flags, so two characters never stand on the same tile.
+     * @param character to move
+     * @param oldTile on which the character stands
+     * @param newTile to move to
+     * @return true if the character has moved
+     */
+    private boolean move(Character character, Tile oldTile, Tile newTile) {
+        Board board = sensor.getBoard();
+        if (!board.trySetFlag(newTile.getIndex(), Board.CHARACTER))
+            return false;
+        oldTile.setCharacter(false);
+        board.draw(oldTile);
+        sensor.setTile(newTile);
+        character.getDecision().updateEvaluation(-1);
+        return true;
     }
 
     /**
@@ -120,68 +165,73 @@ public class Effector {
      * Method that throws a rock up
      */
     public void throwUp() {
-        Tile tile = sensor.getBoard().getTile(sensor.getXPosition(), sensor.getYPosition() - 1);
-        if(tile.isMonster()) {
-            tile.setMonster(false);
-            removeBadSmelling(tile);
-        }
+        throwAt(sensor.getBoard().getTile(sensor.getXPosition(), sensor.getYPosition() - 1));
     }
 
     /**
      * Method that throws a rock down
      */
     public void throwDown() {
-        Tile tile = sensor.getBoard().getTile(sensor.getXPosition(), sensor.getYPosition() + 1);
-        if(tile.isMonster()) {
-            tile.setMonster(false);
-            removeBadSmelling(tile);
-        }
+        throwAt(sensor.getBoard().getTile(sensor.getXPosition(), sensor.getYPosition() + 1));
     }
 
     /**
      * Method that throws a rock left
      */
     public void throwLeft() {
-        Tile tile = sensor.getBoard().getTile(sensor.getXPosition() - 1, sensor.getYPosition());
-        if(tile.isMonster()) {
-            tile.setMonster(false);
-            removeBadSmelling(tile);
-        }
+        throwAt(sensor.getBoard().getTile(sensor.getXPosition() - 1, sensor.getYPosition()));
     }
 
     /**
      * Method that throws a rock right
      */
     public void throwRight() {
-        Tile tile = sensor.getBoard().getTile(sensor.getXPosition() + 1, sensor.getYPosition());
-        if(tile.isMonster()) {
-            tile.setMonster(false);
+        throwAt(sensor.getBoard().getTile(sensor.getXPosition() + 1, sensor.getYPosition()));
+    }
+
+    /**
+     * Method that throws a rock on a tile and kills its monster, if any.
+     * The monster is removed with an atomic change of the flags of the tile, so when two characters throw a rock
+     * at the same monster, only the one which has killed it removes the bad smelling.
+     * @param tile on which the rock falls
+     */
+    private void throwAt(Tile tile) {
+        if (sensor.getBoard().tryClearFlag(tile.getIndex(), Board.MONSTER))
             removeBadSmelling(tile);
-        }
     }
 
     /**
-     * Method that removes the bad smelling of neighbours of tile
+     * Method that removes the bad smelling of the neighbours of a tile whose monster has been killed.
+     * The smell of every neighbour is computed again from the monsters around it at this time, it is never cleared
+     * and set again. As the monsters are only removed during a level, a smell only ever has to be cleared,
+     * so when characters kill neighbour monsters at the same time, the last of them to look at a tile
+     * sees both monsters dead and clears its smell.
      * @param tile to remove the bad smelling
      */
     private void removeBadSmelling(Tile tile) {
-        List<Tile> neighbours = sensor.getBoard().getNeighbours(tile);
-        neighbours.forEach(neighbour -> {
-            neighbour.setBadSmelling(false);
-            neighbour.draw();
-        });
-
-        List<Tile> allNeighbours = sensor.getBoard().getAllNeighbours(tile);
-        allNeighbours.forEach(neighbour -> {
-            if (neighbour.isMonster()) {
-                List<Tile> neighboursOfNeighbour = sensor.getBoard().getNeighbours(neighbour);
-                neighboursOfNeighbour.forEach(neighbourOfNeighbour -> {
-                    neighbourOfNeighbour.setBadSmelling(true);
-                    neighbourOfNeighbour.draw();
-                });
+        Board board = sensor.getBoard();
+        int count = board.getNeighbours(tile.getIndex(), neighbours);
+        for (int i = 0; i < count; i++) {
+            int neighbour = neighbours[i];
+            if (!hasMonsterNeighbour(neighbour) && board.tryClearFlag(neighbour, Board.BAD_SMELLING)) {
+                board.draw(board.getTile(neighbour));
+                sensor.perceptionChanged(board.getTile(neighbour));
             }
-        });
+        }
     }
-}
-
 
+    /**
+     * Method that checks if a monster is next to a cell
+     * @param cell index of the cell
+     * @return true if a neighbour of the cell has a monster
+     */
+    private boolean hasMonsterNeighbour(int cell) {
+        Board board = sensor.getBoard();
+        int count = board.getNeighbours(cell, monsterNeighbours);
+        for (int i = 0; i < count; i++) {
+            if (board.hasFlag(monsterNeighbours[i], Board.MONSTER))
+                return true;
+        }
+        return false;
+    }
+}
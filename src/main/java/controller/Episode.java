@@ -0,0 +1,76 @@
+package controller;
+
+import lombok.Getter;
+import model.Board;
+import model.Tile;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class that plays a full game without any view, from the first level until the death of the character
+ */
+public class Episode {
+
+    /**
+     * Reason why an episode has ended
+     */
+    public enum End {
+        CREVASSE,
+        MONSTER,
+        STEP_LIMIT
+    }
+
+    @Getter
+    private final long seed;
+    @Getter
+    private int evaluation;
+    @Getter
+    private int levelsReached;
+    @Getter
+    private int steps;
+    @Getter
+    private final List<Integer> stepsPerLevel = new ArrayList<>();
+    @Getter
+    private End end;
+
+    /**
+     * Episode constructor
+     * @param seed of the episode, the same seed plays the same game
+     */
+    public Episode(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Play the game until the character dies or the step limit is reached.
+     * The game is recorded if the magicmaze.record system property is set.
+     * @param maxSteps maximum number of steps of the game
+     * @return this episode, with its results
+     * @throws IOException if the game can not be recorded
+     */
+    public Episode play(int maxSteps) throws IOException {
+        Simulation simulation = new Simulation(new Board(3, 3, seed));
+        try (EpisodeRecorder recorder = EpisodeRecorder.fromConfiguration(simulation.getBoard())) {
+            simulation.setRecorder(recorder);
+            int levelSteps = 0;
+            end = End.STEP_LIMIT;
+            while (steps < maxSteps) {
+                Tile tile = simulation.getCharacter().getSensor().getTile();
+                Simulation.Outcome outcome = simulation.step();
+                steps++;
+                levelSteps++;
+                if (outcome == Simulation.Outcome.NEXT_LEVEL) {
+                    stepsPerLevel.add(levelSteps);
+                    levelSteps = 0;
+                } else if (outcome == Simulation.Outcome.DEAD) {
+                    end = tile.isCrevasse() ? End.CREVASSE : End.MONSTER;
+                    break;
+                }
+            }
+        }
+        levelsReached = stepsPerLevel.size() + 1;
+        evaluation = simulation.getCharacter().getDecision().getEvaluation();
+        return this;
+    }
+}
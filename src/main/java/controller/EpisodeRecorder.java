@@ -0,0 +1,211 @@
+package controller;
+
+import model.Action;
+import model.Board;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Class that records a game into a compact binary file, which EpisodeReplay plays again.
+ * The file starts with a header: the magic number, the version, the flags, the seed and the size of the first level,
+ * then, if the game has started on a level loaded from a file, the number of this level and the path of the file.
+ * Then every action is one byte, its ordinal, and every step ends with a record:
+ * STEP, followed by the change of the evaluation if the evaluation is recorded,
+ * LEVEL and RESTART, followed by the size of the new level and the evaluation,
+ * DEATH, followed by the evaluation.
+ * The sizes and the evaluations are variable length integers, so a move usually takes two bytes.
+ * The levels are generated again from the seed, so the file holds no tile. A chunked board does not generate
+ * the same levels as a flat one, so the flags tell whether the board of the game is chunked.
+ */
+public class EpisodeRecorder implements Closeable {
+
+    /**
+     * System property giving the directory where the games are recorded
+     */
+    public static final String PROPERTY = "magicmaze.record";
+    /**
+     * System property used to record the change of the evaluation of every step
+     */
+    public static final String EVALUATION_PROPERTY = "magicmaze.record.evaluation";
+
+    static final int MAGIC = 0x4D4D4550;
+    static final int VERSION = 2;
+    static final int EVALUATION_FLAG = 1;
+    static final int CHUNKED_FLAG = 2;
+    static final int LEVEL_FILE_FLAG = 4;
+    static final int STEP = 0x40;
+    static final int LEVEL = 0x41;
+    static final int DEATH = 0x42;
+    static final int RESTART = 0x43;
+
+    private final DataOutputStream output;
+    private final boolean evaluationDeltas;
+    private boolean closed;
+
+    /**
+     * EpisodeRecorder constructor, the game is recorded from the current level of the board, which must be its first level
+     * @param file where the game is recorded
+     * @param board of the game
+     * @param evaluationDeltas true to record the change of the evaluation of every step
+     * @throws IOException if the file can not be written
+     */
+    public EpisodeRecorder(Path file, Board board, boolean evaluationDeltas) throws IOException {
+        this(file, board, evaluationDeltas, null);
+    }
+
+    /**
+     * EpisodeRecorder constructor, the game is recorded from the current level of the board, which must be its first level
+     * @param file where the game is recorded
+     * @param board of the game
+     * @param evaluationDeltas true to record the change of the evaluation of every step
+     * @param levelFile from which the first level has been loaded, or null if it has been generated from the seed
+     * @throws IOException if the file can not be written
+     */
+    public EpisodeRecorder(Path file, Board board, boolean evaluationDeltas, Path levelFile) throws IOException {
+        this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        this.evaluationDeltas = evaluationDeltas;
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        output.writeByte((evaluationDeltas ? EVALUATION_FLAG : 0) | (board.isChunked() ? CHUNKED_FLAG : 0)
+                | (levelFile != null ? LEVEL_FILE_FLAG : 0));
+        output.writeLong(board.getRandomStreams().getSeed());
+        writeVarInt(board.getHeight());
+        writeVarInt(board.getWidth());
+        if (levelFile != null) {
+            byte[] path = levelFile.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8);
+            writeVarInt(board.getRandomStreams().getLevel());
+            writeVarInt(path.length);
+            output.write(path);
+        }
+    }
+
+    /**
+     * Create a recorder in the directory given by the magicmaze.record system property, if it is set.
+     * The file is named after the seed of the game.
+     * @param board of the game
+     * @return the recorder, or null if the games are not recorded
+     * @throws IOException if the file can not be written
+     */
+    public static EpisodeRecorder fromConfiguration(Board board) throws IOException {
+        return fromConfiguration(board, null);
+    }
+
+    /**
+     * Create a recorder in the directory given by the magicmaze.record system property, if it is set.
+     * The file is named after the seed of the game.
+     * @param board of the game
+     * @param levelFile from which the first level has been loaded, or null if it has been generated from the seed
+     * @return the recorder, or null if the games are not recorded
+     * @throws IOException if the file can not be written
+     */
+    public static EpisodeRecorder fromConfiguration(Board board, Path levelFile) throws IOException {
+        String directory = System.getProperty(PROPERTY);
+        if (directory == null)
+            return null;
+        Path file = Paths.get(directory, String.format("episode-%016x.mmep", board.getRandomStreams().getSeed()));
+        return new EpisodeRecorder(file, board, Boolean.getBoolean(EVALUATION_PROPERTY), levelFile);
+    }
+
+    /**
+     * Record a step in which the character has done actions
+     * @param actions done during the step
+     * @param evaluationDelta change of the evaluation during the step
+     */
+    public synchronized void recordStep(List<Action> actions, int evaluationDelta) {
+        if (closed)
+            return;
+        try {
+            for (Action action : actions)
+                output.writeByte(action.ordinal());
+            output.writeByte(STEP);
+            if (evaluationDeltas)
+                writeVarInt(zigZag(evaluationDelta));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Record a step in which the character has gone to the next level
+     * @param board of the new level
+     * @param evaluation of the character after the step
+     */
+    public synchronized void recordLevel(Board board, int evaluation) {
+        recordLevel(LEVEL, board, evaluation);
+    }
+
+    /**
+     * Record the restart of the game after a death, which is not a step
+     * @param board of the first level
+     * @param evaluation of the character after the restart
+     */
+    public synchronized void recordRestart(Board board, int evaluation) {
+        recordLevel(RESTART, board, evaluation);
+    }
+
+    /**
+     * Record a step in which the character has died
+     * @param evaluation of the character after the step
+     */
+    public synchronized void recordDeath(int evaluation) {
+        if (closed)
+            return;
+        try {
+            output.writeByte(DEATH);
+            writeVarInt(zigZag(evaluation));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flush and close the file, the steps played afterwards are not recorded
+     * @throws IOException if the file can not be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        output.close();
+    }
+
+    private void recordLevel(int record, Board board, int evaluation) {
+        if (closed)
+            return;
+        try {
+            output.writeByte(record);
+            writeVarInt(board.getHeight());
+            writeVarInt(board.getWidth());
+            writeVarInt(zigZag(evaluation));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write an unsigned integer on 7 bits per byte, the high bit tells whether another byte follows
+     */
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    /**
+     * Map a signed integer to an unsigned one, so the small negative integers are written on few bytes
+     */
+    private static int zigZag(int value) {
+        return value << 1 ^ value >> 31;
+    }
+}
@@ -0,0 +1,357 @@
+package controller;
+
+import lombok.Getter;
+import model.Action;
+import model.Board;
+import model.Character;
+import model.LevelFile;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class that plays again a game recorded by EpisodeRecorder, through the effector of a simulation.
+ * The file is memory-mapped and scanned once when it is opened, to index the start of every level, so the replay
+ * can jump to any step: the level of the step is generated again from the seed, or loaded again from its file for
+ * the first level of a game started on a level file, and only the steps of this level before the wanted one are played.
+ * A file cut during the recording is read up to its last complete record.
+ * The replay checks that the simulation follows the recorded game, and throws an IllegalStateException otherwise.
+ */
+public class EpisodeReplay implements Closeable {
+
+    /**
+     * System property giving the file of the game replayed by the window
+     */
+    public static final String PROPERTY = "magicmaze.replay";
+    /**
+     * System property giving the step the window jumps to when it replays a game
+     */
+    public static final String STEP_PROPERTY = "magicmaze.replay.step";
+
+    private static final Action[] ACTIONS = Action.values();
+
+    /**
+     * Start of a level in the file
+     */
+    private static class LevelStart {
+        private final int position;
+        private final long step;
+        private final int level;
+        private final int height;
+        private final int width;
+        private final int evaluation;
+
+        private LevelStart(int position, long step, int level, int height, int width, int evaluation) {
+            this.position = position;
+            this.step = step;
+            this.level = level;
+            this.height = height;
+            this.width = width;
+            this.evaluation = evaluation;
+        }
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final boolean evaluationDeltas;
+    /**
+     * True if the game has been played on a chunked board, the board of the replay must be chunked too
+     */
+    @Getter
+    private final boolean chunked;
+    /**
+     * File of the first level, or null if the first level has been generated from the seed
+     */
+    @Getter
+    private final Path levelFile;
+    /**
+     * Number of the first level in the streams of the seed
+     */
+    private final int firstLevel;
+    private final List<LevelStart> levels = new ArrayList<>();
+    private final List<Action> actions = new ArrayList<>();
+    @Getter
+    private final long seed;
+    @Getter
+    private long steps;
+    @Getter
+    private long step;
+    private int evaluation;
+
+    /**
+     * EpisodeReplay constructor, maps the file and indexes its levels
+     * @param file recorded by EpisodeRecorder
+     * @throws IOException if the file can not be read or is not a recorded game
+     */
+    public EpisodeReplay(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Recorded game too large: " + file);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 14 || buffer.getInt() != EpisodeRecorder.MAGIC)
+                throw new IOException("Not a recorded game: " + file);
+            int version = buffer.get();
+            if (version < 1 || version > EpisodeRecorder.VERSION)
+                throw new IOException("Unknown version of recorded game: " + file);
+            int flags = buffer.get();
+            evaluationDeltas = (flags & EpisodeRecorder.EVALUATION_FLAG) != 0;
+            chunked = (flags & EpisodeRecorder.CHUNKED_FLAG) != 0;
+            seed = buffer.getLong();
+            int height = readVarInt();
+            int width = readVarInt();
+            if ((flags & EpisodeRecorder.LEVEL_FILE_FLAG) != 0) {
+                firstLevel = readVarInt();
+                byte[] path = new byte[readVarInt()];
+                buffer.get(path);
+                levelFile = Paths.get(new String(path, StandardCharsets.UTF_8));
+                if (!Files.isReadable(levelFile))
+                    throw new IOException("Level of the recorded game not found: " + levelFile);
+            } else {
+                firstLevel = 0;
+                levelFile = null;
+            }
+            levels.add(new LevelStart(buffer.position(), 0, 0, height, width, 0));
+            index(file);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Scan the records once, to count the steps and find the start of every level
+     */
+    private void index(Path file) throws IOException {
+        int end = buffer.position();
+        try {
+            while (buffer.hasRemaining()) {
+                int record = buffer.get();
+                if (record >= 0 && record < ACTIONS.length)
+                    continue;
+                switch (record) {
+                    case EpisodeRecorder.STEP:
+                        if (evaluationDeltas)
+                            readVarInt();
+                        steps++;
+                        break;
+                    case EpisodeRecorder.DEATH:
+                        readVarInt();
+                        steps++;
+                        break;
+                    case EpisodeRecorder.LEVEL:
+                    case EpisodeRecorder.RESTART: {
+                        if (record == EpisodeRecorder.LEVEL)
+                            steps++;
+                        int height = readVarInt();
+                        int width = readVarInt();
+                        int levelEvaluation = zagZig(readVarInt());
+                        levels.add(new LevelStart(buffer.position(), steps, levels.size(), height, width, levelEvaluation));
+                        break;
+                    }
+                    default:
+                        throw new IOException("Corrupted recorded game: " + file + " at byte " + (buffer.position() - 1));
+                }
+                end = buffer.position();
+            }
+        } catch (BufferUnderflowException e) {
+            // The recording has been cut in the middle of a record
+        }
+        buffer.limit(end);
+    }
+
+    /**
+     * Get the number of levels of the game, deaths included
+     * @return number of levels
+     */
+    public int getLevels() {
+        return levels.size();
+    }
+
+    /**
+     * Get the height of the first level
+     * @return height of the first level
+     */
+    public int getHeight() {
+        return levels.get(0).height;
+    }
+
+    /**
+     * Get the width of the first level
+     * @return width of the first level
+     */
+    public int getWidth() {
+        return levels.get(0).width;
+    }
+
+    /**
+     * Jump to a step of the game: generate its level again and play the steps of the level before it.
+     * The replay of the simulation becomes this replay.
+     * @param simulation created with the seed of the game, on a board chunked like the board of the game
+     * @param target number of steps played before the jump ends, at a restart the game jumps after the restart
+     */
+    public void seek(Simulation simulation, long target) {
+        if (target < 0 || target > steps)
+            throw new IllegalArgumentException("Step " + target + " out of the " + steps + " steps of the game");
+        if (simulation.getBoard().isChunked() != chunked)
+            throw new IllegalArgumentException("The game has been played on a " + (chunked ? "chunked" : "flat") + " board");
+        int low = 0;
+        int high = levels.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (levels.get(middle).step <= target)
+                low = middle;
+            else
+                high = middle - 1;
+        }
+        LevelStart start = levels.get(low);
+
+        Board board = simulation.getBoard();
+        Character character = simulation.getCharacter();
+        if (start.level == 0 && levelFile != null)
+            board.startLevel(character, loadLevel());
+        else
+            board.startLevel(character, firstLevel + start.level, start.height, start.width);
+        character.getSensor().nextLevel();
+        character.getDecision().setEvaluation(start.evaluation);
+        buffer.position(start.position);
+        step = start.step;
+        evaluation = start.evaluation;
+
+        simulation.setReplay(this);
+        while (step < target)
+            simulation.step();
+    }
+
+    /**
+     * Check if the recorded game has steps left
+     * @return true if a step can be replayed
+     */
+    public boolean hasNext() {
+        return buffer.hasRemaining();
+    }
+
+    /**
+     * Read the actions of the next step, which must be a move
+     * @return the actions, the list is reused by the next step
+     */
+    List<Action> nextActions() {
+        actions.clear();
+        int record = buffer.get();
+        while (record >= 0 && record < ACTIONS.length) {
+            actions.add(ACTIONS[record]);
+            record = buffer.get();
+        }
+        if (record != EpisodeRecorder.STEP)
+            throw diverged();
+        if (evaluationDeltas)
+            evaluation += zagZig(readVarInt());
+        step++;
+        return actions;
+    }
+
+    /**
+     * Check the evaluation of the character after a move
+     * @param actual evaluation of the character
+     */
+    void checkEvaluation(int actual) {
+        if (evaluationDeltas && actual != evaluation)
+            throw diverged();
+        evaluation = actual;
+    }
+
+    /**
+     * Read the next record, which must be a change of level, and check the new level
+     * @param board of the new level
+     * @param actual evaluation of the character after the step
+     */
+    void expectLevel(Board board, int actual) {
+        expectLevel(EpisodeRecorder.LEVEL, board, actual);
+        step++;
+    }
+
+    /**
+     * Read the next record, which must be a restart, and check the new level
+     * @param board of the first level
+     * @param actual evaluation of the character after the restart
+     */
+    void expectRestart(Board board, int actual) {
+        expectLevel(EpisodeRecorder.RESTART, board, actual);
+    }
+
+    /**
+     * Read the next record, which must be a death, and check the evaluation
+     * @param actual evaluation of the character after the step
+     */
+    void expectDeath(int actual) {
+        if (!hasNext())
+            return;
+        if (buffer.get() != EpisodeRecorder.DEATH || zagZig(readVarInt()) != actual)
+            throw diverged();
+        evaluation = actual;
+        step++;
+    }
+
+    /**
+     * Close the file, its mapping is released once the replay is garbage collected
+     * @throws IOException if the file can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void expectLevel(int record, Board board, int actual) {
+        if (!hasNext())
+            return;
+        if (buffer.get() != record || readVarInt() != board.getHeight() || readVarInt() != board.getWidth()
+                || zagZig(readVarInt()) != actual)
+            throw diverged();
+        evaluation = actual;
+    }
+
+    /**
+     * Load the first level again from its file
+     */
+    private LevelFile loadLevel() {
+        try {
+            return LevelFile.load(levelFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private IllegalStateException diverged() {
+        return new IllegalStateException("The replay has diverged from the recorded game at step " + step);
+    }
+
+    /**
+     * Read an unsigned integer written on 7 bits per byte
+     */
+    private int readVarInt() {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+    }
+
+    /**
+     * Map back an unsigned integer written by the zig-zag encoding to a signed one
+     */
+    private static int zagZig(int value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+}
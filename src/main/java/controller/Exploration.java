@@ -0,0 +1,175 @@
+package controller;
+
+import lombok.Getter;
+import model.Action;
+import model.BitGrid;
+import model.Board;
+import model.Character;
+import model.Tile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class that explores one level with several characters at once, every character planning and moving on its own thread.
+ * The characters share the board without any lock: a move takes the new tile with an atomic change of its flags,
+ * so two characters never stand on the same tile, and a rock kills a monster with an atomic change too,
+ * so only one character removes its bad smelling. The discoveries can be shared between the sensors.
+ * The level never changes: a character stops when it dies, reaches the portal, has nothing left to explore,
+ * has been blocked by the others for MAX_BLOCKED_STEPS steps in a row or has played all its steps,
+ * and then leaves the board. The board of an exploration has no view.
+ */
+public class Exploration {
+
+    /**
+     * System property used to share the discoveries of the characters, "true" by default
+     */
+    public static final String SHARED_PROPERTY = "magicmaze.shared";
+    /**
+     * Number of steps in a row without moving after which a character gives up
+     */
+    public static final int MAX_BLOCKED_STEPS = 64;
+
+    @Getter
+    private final Board board;
+    @Getter
+    private final List<Character> characters = new ArrayList<>();
+    @Getter
+    private final SharedDiscovery sharedDiscovery;
+    @Getter
+    private final Simulation.Outcome[] outcomes;
+    @Getter
+    private final int[] steps;
+    @Getter
+    private final int[] blockedSteps;
+
+    /**
+     * Exploration constructor, generates the items of the board and places the characters on empty tiles
+     * @param board to explore
+     * @param characterCount number of characters
+     * @param shared true to share the discoveries of the characters
+     */
+    public Exploration(Board board, int characterCount, boolean shared) {
+        this.board = board;
+        board.generateItems();
+        sharedDiscovery = shared ? new SharedDiscovery(board.size()) : null;
+        for (int i = 0; i < characterCount; i++) {
+            Tile startTile = board.getRandomEmptyTile();
+            while (startTile.isCharacter())
+                startTile = board.getRandomEmptyTile();
+            Character character = new Character(board, startTile);
+            character.getSensor().setTieBreaking(board.getRandomStreams().newTieBreaking(i));
+            character.getSensor().setSharedDiscovery(sharedDiscovery);
+            characters.add(character);
+        }
+        outcomes = new Simulation.Outcome[characterCount];
+        steps = new int[characterCount];
+        blockedSteps = new int[characterCount];
+    }
+
+    /**
+     * Exploration constructor, the discoveries are shared unless the magicmaze.shared system property is false
+     * @param board to explore
+     * @param characterCount number of characters
+     */
+    public Exploration(Board board, int characterCount) {
+        this(board, characterCount, Boolean.parseBoolean(System.getProperty(SHARED_PROPERTY, "true")));
+    }
+
+    /**
+     * Play all the characters, one thread each, until every one of them has stopped
+     * @param maxSteps maximum number of steps of every character
+     * @return the duration of the exploration in nanoseconds
+     * @throws InterruptedException if the thread is interrupted while the characters play
+     * @throws ExecutionException if a character has failed
+     */
+    public long run(int maxSteps) throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(characters.size(), runnable -> {
+            Thread thread = new Thread(runnable, "character");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>(characters.size());
+            for (int i = 0; i < characters.size(); i++) {
+                int index = i;
+                futures.add(pool.submit(() -> play(index, maxSteps)));
+            }
+            for (Future<?> future : futures)
+                future.get();
+            return System.nanoTime() - start;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Play a character until it stops
+     * @param index of the character
+     * @param maxSteps maximum number of steps of the character
+     */
+    private void play(int index, int maxSteps) {
+        Character character = characters.get(index);
+        Simulation.Outcome outcome = Simulation.Outcome.MOVED;
+        int blockedInRow = 0;
+        while (steps[index] < maxSteps) {
+            outcome = step(index, character);
+            if (outcome != Simulation.Outcome.MOVED)
+                break;
+            steps[index]++;
+            blockedInRow = character.getEffector().getTrail().size() > 1 ? 0 : blockedInRow + 1;
+            if (blockedInRow == MAX_BLOCKED_STEPS) {
+                outcome = Simulation.Outcome.CANCELLED;
+                break;
+            }
+        }
+        outcomes[index] = outcome;
+        character.getSensor().getTile().setCharacter(false);
+    }
+
+    /**
+     * Play one step of a character
+     * @param index of the character
+     * @param character to play
+     * @return MOVED, NEXT_LEVEL when it stands on the portal, DEAD, or FINISHED when there is nothing left to explore
+     */
+    private Simulation.Outcome step(int index, Character character) {
+        Tile tile = character.getSensor().getTile();
+        if (tile.isPortal())
+            return Simulation.Outcome.NEXT_LEVEL;
+        if (tile.isCrevasse() || tile.isMonster()) {
+            character.die();
+            return Simulation.Outcome.DEAD;
+        }
+        if (character.getSensor().getBoundaryTiles().getMinLevel() < 0)
+            return Simulation.Outcome.FINISHED;
+
+        List<Action> actions = character.getDecision().makeRule();
+        character.getEffector().doActions(character, actions);
+        character.getSensor().update();
+        if (actions.isEmpty() || character.getEffector().isBlocked())
+            blockedSteps[index]++;
+        return Simulation.Outcome.MOVED;
+    }
+
+    /**
+     * Count the tiles discovered by all the characters, only the tiles known by one of the sensors are looked at
+     * so that the chunks of the board which have never been reached are not read
+     * @return number of discovered tiles
+     */
+    public int countDiscovered() {
+        BitGrid known = new BitGrid(board.getHeight(), board.getWidth());
+        for (Character character : characters)
+            known.or(character.getSensor().getDiscovered());
+        int count = 0;
+        for (int cell = known.nextSetBit(0); cell >= 0; cell = known.nextSetBit(cell + 1)) {
+            if (board.hasFlag(cell, Board.DISCOVERED))
+                count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,217 @@
+package controller;
+
+import model.Board;
+import model.IntGrid;
+import java.util.Arrays;
+
+/**
+ * Class that indexes the boundary tiles of the sensor by probability.
+ * Probabilities are stored as fixed-point levels (tenths), every level is a bucket of cells,
+ * and every cell knows its level and its position in its bucket.
+ * The exact probabilities of a cell are kept next to it in its bucket, so they belong to the sensor
+ * and not to the tiles of the board, which are shared by all the characters.
+ * The levels and the positions of the cells are held in grids chunked like the board, so on a chunked board
+ * they only take memory around the explored tiles.
+ * Insertion, update, removal and lookup of the lowest level are O(1).
+ */
+public class FrontierIndex {
+    public static final int LEVELS = 11;
+
+    private final IntGrid levels;
+    private final IntGrid positions;
+    private final int[][] buckets;
+    private final double[][] probabilities;
+    private final double[][] monsterProbabilities;
+    private final int[] sizes;
+    private int nonEmptyLevels;
+    private int size;
+
+    /**
+     * FrontierIndex constructor
+     * @param board whose cells are indexed
+     */
+    public FrontierIndex(Board board) {
+        levels = new IntGrid(board, -1);
+        positions = new IntGrid(board, 0);
+        buckets = new int[LEVELS][];
+        probabilities = new double[LEVELS][];
+        monsterProbabilities = new double[LEVELS][];
+        for (int level = 0; level < LEVELS; level++) {
+            buckets[level] = new int[16];
+            probabilities[level] = new double[16];
+            monsterProbabilities[level] = new double[16];
+        }
+        sizes = new int[LEVELS];
+    }
+
+    /**
+     * Convert a probability to its level
+     * @param probability between 0 and 1
+     * @return level of the probability
+     */
+    public static int toLevel(double probability) {
+        return (int) Math.round(probability * (LEVELS - 1));
+    }
+
+    /**
+     * Convert a level to its probability
+     * @param level between 0 and LEVELS - 1
+     * @return probability of the level
+     */
+    public static double toProbability(int level) {
+        return level / (double) (LEVELS - 1);
+    }
+
+    /**
+     * Empty the index and make it able to store the cells of a board of another size
+     * @param height of the board
+     * @param width of the board
+     */
+    public void resize(int height, int width) {
+        levels.resize(height, width);
+        positions.resize(height, width);
+        Arrays.fill(sizes, 0);
+        nonEmptyLevels = 0;
+        size = 0;
+    }
+
+    /**
+     * Empty the index, in O(size)
+     */
+    public void clear() {
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < sizes[level]; i++)
+                levels.set(buckets[level][i], -1);
+            sizes[level] = 0;
+        }
+        nonEmptyLevels = 0;
+        size = 0;
+    }
+
+    public boolean contains(int cell) {
+        return levels.get(cell) >= 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the level of a cell
+     * @param cell index of the cell
+     * @return level of the cell, or -1 if the cell is not in the index
+     */
+    public int getLevel(int cell) {
+        return levels.get(cell);
+    }
+
+    /**
+     * Get the probability of hazard of a cell
+     * @param cell index of the cell
+     * @return probability of a crevasse or a monster on the cell, 0 if the cell is not in the index
+     */
+    public double getProbability(int cell) {
+        int level = levels.get(cell);
+        return level < 0 ? 0 : probabilities[level][positions.get(cell)];
+    }
+
+    /**
+     * Get the probability of monster of a cell
+     * @param cell index of the cell
+     * @return probability of a monster on the cell, 0 if the cell is not in the index
+     */
+    public double getMonsterProbability(int cell) {
+        int level = levels.get(cell);
+        return level < 0 ? 0 : monsterProbabilities[level][positions.get(cell)];
+    }
+
+    /**
+     * Insert a cell at a level, or move it to this level if it is already in the index
+     * @param cell index of the cell
+     * @param level of the cell
+     * @param probability of a crevasse or a monster on the cell
+     * @param monsterProbability of a monster on the cell
+     */
+    public void put(int cell, int level, double probability, double monsterProbability) {
+        int oldLevel = levels.get(cell);
+        if (oldLevel != level) {
+            if (oldLevel >= 0)
+                removeFromBucket(cell, oldLevel);
+            else
+                size++;
+
+            if (sizes[level] == buckets[level].length) {
+                int length = buckets[level].length * 2;
+                buckets[level] = Arrays.copyOf(buckets[level], length);
+                probabilities[level] = Arrays.copyOf(probabilities[level], length);
+                monsterProbabilities[level] = Arrays.copyOf(monsterProbabilities[level], length);
+            }
+            positions.set(cell, sizes[level]);
+            buckets[level][sizes[level]++] = cell;
+            levels.set(cell, level);
+            nonEmptyLevels |= 1 << level;
+        }
+        int position = positions.get(cell);
+        probabilities[level][position] = probability;
+        monsterProbabilities[level][position] = monsterProbability;
+    }
+
+    /**
+     * Remove a cell from the index if it is in
+     * @param cell index of the cell
+     */
+    public void remove(int cell) {
+        int level = levels.get(cell);
+        if (level < 0)
+            return;
+        removeFromBucket(cell, level);
+        levels.set(cell, -1);
+        size--;
+    }
+
+    /**
+     * Get the lowest level which contains cells
+     * @return the lowest level, or -1 if the index is empty
+     */
+    public int getMinLevel() {
+        return nonEmptyLevels == 0 ? -1 : Integer.numberOfTrailingZeros(nonEmptyLevels);
+    }
+
+    /**
+     * Get the number of cells of a level
+     * @param level to count
+     * @return number of cells of the level
+     */
+    public int size(int level) {
+        return sizes[level];
+    }
+
+    /**
+     * Get a cell of a level
+     * @param level of the cell
+     * @param i position of the cell in the level, between 0 and size(level) - 1
+     * @return index of the cell
+     */
+    public int get(int level, int i) {
+        return buckets[level][i];
+    }
+
+    /**
+     * Swap the cell with the last one of its bucket and shrink the bucket
+     */
+    private void removeFromBucket(int cell, int level) {
+        int[] bucket = buckets[level];
+        int last = bucket[--sizes[level]];
+        int position = positions.get(cell);
+        bucket[position] = last;
+        probabilities[level][position] = probabilities[level][sizes[level]];
+        monsterProbabilities[level][position] = monsterProbabilities[level][sizes[level]];
+        positions.set(last, position);
+        if (sizes[level] == 0)
+            nonEmptyLevels &= ~(1 << level);
+    }
+}
@@ -0,0 +1,322 @@
+package controller;
+
+import model.BitGrid;
+import model.Board;
+import model.IntGrid;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class that computes the exact probabilities of hazard of the boundary tiles.
+ * The boundary tiles are split into components, two tiles being in the same component when they are neighbours
+ * of the same windy or bad smelling discovered tile, so the components are independent of each other.
+ * The configurations of crevasses and monsters of a component which agree with the percepts of its discovered
+ * neighbours are counted, weighted by the probabilities of the generator of the board.
+ * The results are cached by the structure of the component, so a component which has not changed after a move,
+ * or which has the same structure as a component already counted, is not counted again.
+ * Components too large to be counted keep the probabilities of the heuristic of the sensor.
+ * The marks of the cells are held in grids chunked like the board, so they only take memory around the boundary.
+ */
+class FrontierInference {
+    static final int MAX_VARIABLES = 30;
+    static final long MAX_CONFIGURATIONS = 1 << 20;
+    static final int CACHE_SIZE = 1 << 14;
+
+    private static final double EMPTY_WEIGHT = 0.8;
+    private static final double CREVASSE_WEIGHT = 0.1;
+    private static final double MONSTER_WEIGHT = 0.1;
+    private static final int WINDY = 1;
+    private static final int BAD_SMELLING = 2;
+
+    private final Sensor sensor;
+    private final Map<Signature, double[]> cache = new LinkedHashMap<Signature, double[]>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Signature, double[]> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private int[] queue = new int[16];
+    private IntGrid stamps;
+    private IntGrid positions;
+    private int stamp;
+    private final int[] neighbours = new int[4];
+    private final int[] tileNeighbours = new int[4];
+    private final int[] safeNeighbours = new int[4];
+
+    private int variableCount;
+    private int constraintCount;
+    private final boolean[] mayBeCrevasse = new boolean[MAX_VARIABLES];
+    private final boolean[] mayBeMonster = new boolean[MAX_VARIABLES];
+    private final int[] constraintMasks = new int[4 * MAX_VARIABLES];
+    private final int[] constraintPercepts = new int[4 * MAX_VARIABLES];
+    private final int[] constraintStarts = new int[MAX_VARIABLES + 1];
+    private final int[] constraintOrder = new int[4 * MAX_VARIABLES];
+    private double totalWeight;
+    private final double[] crevasseWeights = new double[MAX_VARIABLES];
+    private final double[] monsterWeights = new double[MAX_VARIABLES];
+
+    /**
+     * FrontierInference constructor
+     * @param sensor whose boundary tiles are evaluated
+     */
+    FrontierInference(Sensor sensor) {
+        this.sensor = sensor;
+    }
+
+    /**
+     * Compute the probabilities of every boundary tile which is not known to be safe
+     */
+    void infer() {
+        Board board = sensor.getBoard();
+        BitGrid frontier = sensor.getFrontier();
+        if (stamps == null || !stamps.fits(board)) {
+            stamps = new IntGrid(board, 0);
+            positions = new IntGrid(board, 0);
+            stamp = 0;
+        }
+        stamp++;
+        for (int cell = frontier.nextSetBit(0); cell >= 0; cell = frontier.nextSetBit(cell + 1)) {
+            if (stamps.get(cell) != stamp && !isKnownSafe(cell))
+                inferComponent(cell);
+        }
+    }
+
+    /**
+     * Collect the component of a boundary tile and compute the probabilities of its tiles
+     * @param first boundary tile of the component
+     */
+    private void inferComponent(int first) {
+        Board board = sensor.getBoard();
+        BitGrid frontier = sensor.getFrontier();
+        BitGrid discovered = sensor.getDiscovered();
+        int size = 0;
+        queue[size++] = first;
+        stamps.set(first, stamp);
+        for (int head = 0; head < size; head++) {
+            int count = board.getNeighbours(queue[head], neighbours);
+            for (int i = 0; i < count; i++) {
+                if (!discovered.get(neighbours[i]) || percept(neighbours[i]) == 0)
+                    continue;
+                int tileCount = board.getNeighbours(neighbours[i], tileNeighbours);
+                for (int j = 0; j < tileCount; j++) {
+                    int cell = tileNeighbours[j];
+                    if (frontier.get(cell) && stamps.get(cell) != stamp && !isKnownSafe(cell)) {
+                        stamps.set(cell, stamp);
+                        if (size == queue.length)
+                            queue = Arrays.copyOf(queue, size * 2);
+                        queue[size++] = cell;
+                    }
+                }
+            }
+        }
+
+        if (size > MAX_VARIABLES) {
+            for (int i = 0; i < size; i++)
+                sensor.estimateProbability(queue[i]);
+            return;
+        }
+        Arrays.sort(queue, 0, size);
+        variableCount = size;
+        for (int i = 0; i < size; i++)
+            positions.set(queue[i], i);
+        collectConstraints();
+
+        Signature signature = signature();
+        double[] probabilities = cache.get(signature);
+        if (probabilities == null) {
+            probabilities = count();
+            if (probabilities == null) {
+                for (int i = 0; i < size; i++)
+                    sensor.estimateProbability(queue[i]);
+                return;
+            }
+            cache.put(signature, probabilities);
+        }
+        for (int i = 0; i < size; i++) {
+            double crevasse = probabilities[2 * i];
+            double monster = probabilities[2 * i + 1];
+            sensor.setProbability(queue[i], crevasse + monster, monster);
+        }
+    }
+
+    /**
+     * Collect the windy or bad smelling discovered neighbours of the tiles of the component,
+     * every one of them is a constraint on the tiles of the component around it
+     */
+    private void collectConstraints() {
+        Board board = sensor.getBoard();
+        BitGrid discovered = sensor.getDiscovered();
+        constraintCount = 0;
+        for (int variable = 0; variable < variableCount; variable++) {
+            int count = board.getNeighbours(queue[variable], neighbours);
+            for (int i = 0; i < count; i++) {
+                int tile = neighbours[i];
+                if (!discovered.get(tile) || stamps.get(tile) == stamp || percept(tile) == 0)
+                    continue;
+                stamps.set(tile, stamp);
+                int mask = 0;
+                int tileCount = board.getNeighbours(tile, tileNeighbours);
+                for (int j = 0; j < tileCount; j++) {
+                    int cell = tileNeighbours[j];
+                    if (stamps.get(cell) == stamp && !discovered.get(cell))
+                        mask |= 1 << positions.get(cell);
+                }
+                constraintMasks[constraintCount] = mask;
+                constraintPercepts[constraintCount] = percept(tile);
+                constraintCount++;
+            }
+        }
+    }
+
+    /**
+     * Build the signature of the component: its number of tiles and its constraints, sorted
+     * @return the signature
+     */
+    private Signature signature() {
+        long[] sorted = new long[constraintCount];
+        for (int i = 0; i < constraintCount; i++)
+            sorted[i] = (long) constraintMasks[i] << 2 | constraintPercepts[i];
+        Arrays.sort(sorted);
+        int[] data = new int[2 * constraintCount + 1];
+        data[0] = variableCount;
+        for (int i = 0; i < constraintCount; i++) {
+            data[2 * i + 1] = (int) (sorted[i] >>> 2);
+            data[2 * i + 2] = (int) (sorted[i] & 3);
+        }
+        return new Signature(data);
+    }
+
+    /**
+     * Count the configurations of the component which agree with its constraints
+     * @return the probabilities of crevasse and monster of every tile, or null if there are too many configurations
+     * to count or none at all
+     */
+    private double[] count() {
+        Arrays.fill(mayBeCrevasse, 0, variableCount, true);
+        Arrays.fill(mayBeMonster, 0, variableCount, true);
+        Arrays.fill(constraintStarts, 0);
+        for (int c = 0; c < constraintCount; c++) {
+            int mask = constraintMasks[c];
+            for (int variable = 0; variable < variableCount; variable++) {
+                if ((mask & 1 << variable) == 0)
+                    continue;
+                mayBeCrevasse[variable] &= (constraintPercepts[c] & WINDY) != 0;
+                mayBeMonster[variable] &= (constraintPercepts[c] & BAD_SMELLING) != 0;
+            }
+            constraintStarts[31 - Integer.numberOfLeadingZeros(mask) + 1]++;
+        }
+
+        long configurations = 1;
+        for (int variable = 0; variable < variableCount && configurations <= MAX_CONFIGURATIONS; variable++)
+            configurations *= 1 + (mayBeCrevasse[variable] ? 1 : 0) + (mayBeMonster[variable] ? 1 : 0);
+        if (configurations > MAX_CONFIGURATIONS)
+            return null;
+
+        // Constraints are checked once their last tile is assigned, they are sorted by last tile
+        for (int variable = 0; variable < variableCount; variable++)
+            constraintStarts[variable + 1] += constraintStarts[variable];
+        int[] next = Arrays.copyOf(constraintStarts, variableCount);
+        for (int c = 0; c < constraintCount; c++)
+            constraintOrder[next[31 - Integer.numberOfLeadingZeros(constraintMasks[c])]++] = c;
+
+        totalWeight = 0;
+        Arrays.fill(crevasseWeights, 0, variableCount, 0);
+        Arrays.fill(monsterWeights, 0, variableCount, 0);
+        count(0, 0, 0, 1);
+        if (totalWeight == 0)
+            return null;
+
+        double[] probabilities = new double[2 * variableCount];
+        for (int variable = 0; variable < variableCount; variable++) {
+            probabilities[2 * variable] = crevasseWeights[variable] / totalWeight;
+            probabilities[2 * variable + 1] = monsterWeights[variable] / totalWeight;
+        }
+        return probabilities;
+    }
+
+    /**
+     * Assign every possible content to a tile of the component, then to the next ones
+     * @param variable position of the tile in the component
+     * @param crevasses mask of the tiles already assigned a crevasse
+     * @param monsters mask of the tiles already assigned a monster
+     * @param weight of the assignment so far
+     */
+    private void count(int variable, int crevasses, int monsters, double weight) {
+        if (variable == variableCount) {
+            totalWeight += weight;
+            for (int mask = crevasses; mask != 0; mask &= mask - 1)
+                crevasseWeights[Integer.numberOfTrailingZeros(mask)] += weight;
+            for (int mask = monsters; mask != 0; mask &= mask - 1)
+                monsterWeights[Integer.numberOfTrailingZeros(mask)] += weight;
+            return;
+        }
+        int bit = 1 << variable;
+        if (satisfied(variable, crevasses, monsters))
+            count(variable + 1, crevasses, monsters, weight * EMPTY_WEIGHT);
+        if (mayBeCrevasse[variable] && satisfied(variable, crevasses | bit, monsters))
+            count(variable + 1, crevasses | bit, monsters, weight * CREVASSE_WEIGHT);
+        if (mayBeMonster[variable] && satisfied(variable, crevasses, monsters | bit))
+            count(variable + 1, crevasses, monsters | bit, weight * MONSTER_WEIGHT);
+    }
+
+    /**
+     * Check the constraints whose last tile is a given tile
+     * @return true if every windy constraint has a crevasse and every bad smelling constraint has a monster
+     */
+    private boolean satisfied(int variable, int crevasses, int monsters) {
+        for (int i = constraintStarts[variable]; i < constraintStarts[variable + 1]; i++) {
+            int c = constraintOrder[i];
+            if ((constraintPercepts[c] & WINDY) != 0 && (crevasses & constraintMasks[c]) == 0)
+                return false;
+            if ((constraintPercepts[c] & BAD_SMELLING) != 0 && (monsters & constraintMasks[c]) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Check if a boundary tile is a neighbour of a discovered tile which is neither windy nor bad smelling
+     */
+    private boolean isKnownSafe(int cell) {
+        BitGrid discovered = sensor.getDiscovered();
+        int count = sensor.getBoard().getNeighbours(cell, safeNeighbours);
+        for (int i = 0; i < count; i++) {
+            if (discovered.get(safeNeighbours[i]) && percept(safeNeighbours[i]) == 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the percepts of a discovered tile
+     * @return WINDY and BAD_SMELLING bits of the tile
+     */
+    private int percept(int cell) {
+        return (sensor.getWindy().get(cell) ? WINDY : 0) | (sensor.getBadSmelling().get(cell) ? BAD_SMELLING : 0);
+    }
+
+    /**
+     * Structure of a component: its number of tiles, then the mask and the percepts of every constraint
+     */
+    private static final class Signature {
+        private final int[] data;
+        private final int hash;
+
+        Signature(int[] data) {
+            this.data = data;
+            this.hash = Arrays.hashCode(data);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Signature && Arrays.equals(data, ((Signature) o).data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
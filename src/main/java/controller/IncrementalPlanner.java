@@ -0,0 +1,271 @@
+package controller;
+
+import model.BitGrid;
+import model.Board;
+import model.IntGrid;
+import model.Tile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class that implements an incremental search in the style of D* Lite, which keeps its state between the steps.
+ * The search goes backward from the boundary tiles of the lowest level, which all are goals, to the character,
+ * through the discovered tiles. The sensor reports the cells which have changed, only these cells and their
+ * neighbours are repaired before the next search, and the move of the character only shifts the keys of the
+ * open tiles, so the cost of a step follows the size of the change instead of the size of the explored area.
+ * The planner chooses its own goal, the closest boundary tile of the lowest level, so the decision selects no target.
+ * The costs are held in grids chunked like the board, so on a chunked board they only take memory
+ * around the tiles the search has reached.
+ */
+public class IncrementalPlanner implements PathPlanner, SensorListener {
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+
+    private final Sensor sensor;
+    private IndexedMinHeap openTiles;
+    private IntGrid costs;
+    private IntGrid lookaheads;
+    private int[] changedCells = new int[16];
+    private BitGrid changed;
+    private int changedCount;
+    private boolean reset = true;
+    private int keyModifier;
+    private int lastStart;
+    private int startCell;
+    private int goalLevel;
+    private final int[] neighbours = new int[4];
+    private final int[] predecessors = new int[4];
+
+    /**
+     * IncrementalPlanner constructor, the planner follows the changes of the sensor
+     * @param sensor whose boundary tiles are the goals of the search
+     */
+    public IncrementalPlanner(Sensor sensor) {
+        this.sensor = sensor;
+        sensor.setListener(this);
+    }
+
+    @Override
+    public void cellChanged(int cell) {
+        if (reset || changed.get(cell))
+            return;
+        changed.set(cell);
+        if (changedCount == changedCells.length)
+            changedCells = Arrays.copyOf(changedCells, changedCount * 2);
+        changedCells[changedCount++] = cell;
+    }
+
+    @Override
+    public void knowledgeReset() {
+        reset = true;
+    }
+
+    /**
+     * Find the shortest way from a tile to the closest boundary tile of the lowest level
+     * @param start tile of the way
+     * @param goal ignored, the goals are all the boundary tiles of the lowest level, can be null
+     * @return the tiles of the way, or an empty list if no boundary tile can be reached or if the thread is interrupted
+     */
+    @Override
+    public boolean choosesGoal() {
+        return true;
+    }
+
+    @Override
+    public List<Tile> findPath(Tile start, Tile goal) {
+        FrontierIndex boundaryTiles = sensor.getBoundaryTiles();
+        int minLevel = boundaryTiles.getMinLevel();
+        if (minLevel < 0)
+            return new ArrayList<>();
+        startCell = start.getIndex();
+        if (reset || !costs.fits(sensor.getBoard())) {
+            initialize(minLevel);
+        } else {
+            keyModifier += distance(lastStart, startCell);
+            lastStart = startCell;
+            if (minLevel != goalLevel) {
+                markLevel(goalLevel);
+                markLevel(minLevel);
+                goalLevel = minLevel;
+            }
+            repairChangedCells();
+        }
+        if (!computeShortestPath())
+            return new ArrayList<>();
+        return buildPath();
+    }
+
+    /**
+     * Start a new search: every cost is unknown and the goals are opened
+     * @param minLevel lowest level of the boundary tiles
+     */
+    private void initialize(int minLevel) {
+        Board board = sensor.getBoard();
+        if (costs == null || !costs.fits(board)) {
+            openTiles = new IndexedMinHeap(board);
+            costs = new IntGrid(board, INFINITY);
+            lookaheads = new IntGrid(board, INFINITY);
+            changed = new BitGrid(board.getHeight(), board.getWidth());
+        } else {
+            openTiles.clear();
+            for (int i = 0; i < changedCount; i++)
+                changed.clear(changedCells[i]);
+            costs.fill();
+            lookaheads.fill();
+        }
+        changedCount = 0;
+        keyModifier = 0;
+        lastStart = startCell;
+        goalLevel = minLevel;
+        FrontierIndex boundaryTiles = sensor.getBoundaryTiles();
+        for (int i = 0; i < boundaryTiles.size(minLevel); i++) {
+            int cell = boundaryTiles.get(minLevel, i);
+            lookaheads.set(cell, 0);
+            push(cell);
+        }
+        reset = false;
+    }
+
+    /**
+     * Mark every cell of a level of the boundary tiles as changed, used when the lowest level changes
+     */
+    private void markLevel(int level) {
+        FrontierIndex boundaryTiles = sensor.getBoundaryTiles();
+        for (int i = 0; i < boundaryTiles.size(level); i++)
+            cellChanged(boundaryTiles.get(level, i));
+    }
+
+    /**
+     * Update the changed cells and their neighbours, whose ways through the changed cells may have changed
+     */
+    private void repairChangedCells() {
+        Board board = sensor.getBoard();
+        for (int i = 0; i < changedCount; i++) {
+            int cell = changedCells[i];
+            changed.clear(cell);
+            updateTile(cell);
+            int count = board.getNeighbours(cell, predecessors);
+            for (int j = 0; j < count; j++)
+                updateTile(predecessors[j]);
+        }
+        changedCount = 0;
+    }
+
+    /**
+     * Expand the open tiles until the cost of the start is known and consistent.
+     * An interrupted expansion keeps its open tiles, so the next search goes on from where it has stopped.
+     * @return false if the thread has been interrupted before the cost of the start is known
+     */
+    private boolean computeShortestPath() {
+        Board board = sensor.getBoard();
+        while (!openTiles.isEmpty() && (lessThanStart(openTiles.peekPrimaryKey(), openTiles.peekSecondaryKey())
+                || lookaheads.get(startCell) != costs.get(startCell))) {
+            if (Thread.currentThread().isInterrupted())
+                return false;
+            int cell = openTiles.peek();
+            double oldPrimaryKey = openTiles.peekPrimaryKey();
+            double oldSecondaryKey = openTiles.peekSecondaryKey();
+            int cost = Math.min(costs.get(cell), lookaheads.get(cell));
+            double primaryKey = cost + distance(startCell, cell) + keyModifier;
+            if (oldPrimaryKey < primaryKey || (oldPrimaryKey == primaryKey && oldSecondaryKey < cost)) {
+                openTiles.push(cell, primaryKey, cost);
+            } else if (costs.get(cell) > lookaheads.get(cell)) {
+                costs.set(cell, lookaheads.get(cell));
+                openTiles.remove(cell);
+                int count = board.getNeighbours(cell, predecessors);
+                for (int i = 0; i < count; i++)
+                    updateTile(predecessors[i]);
+            } else {
+                costs.set(cell, INFINITY);
+                updateTile(cell);
+                int count = board.getNeighbours(cell, predecessors);
+                for (int i = 0; i < count; i++)
+                    updateTile(predecessors[i]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compute again the lookahead cost of a tile and open it if it is inconsistent
+     * @param cell index of the tile
+     */
+    private void updateTile(int cell) {
+        if (isGoal(cell)) {
+            lookaheads.set(cell, 0);
+        } else if (!isTraversable(cell)) {
+            lookaheads.set(cell, INFINITY);
+        } else {
+            int best = INFINITY;
+            int count = sensor.getBoard().getNeighbours(cell, neighbours);
+            for (int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                if (isTraversable(neighbour) || isGoal(neighbour))
+                    best = Math.min(best, costs.get(neighbour) + 1);
+            }
+            lookaheads.set(cell, Math.min(best, INFINITY));
+        }
+        if (costs.get(cell) != lookaheads.get(cell))
+            push(cell);
+        else if (openTiles.contains(cell))
+            openTiles.remove(cell);
+    }
+
+    /**
+     * Follow the lowest costs from the start to a goal
+     * @return the tiles of the way, or an empty list if no goal can be reached
+     */
+    private List<Tile> buildPath() {
+        Board board = sensor.getBoard();
+        if (costs.get(startCell) >= INFINITY)
+            return new ArrayList<>();
+        List<Tile> path = new ArrayList<>(costs.get(startCell) + 1);
+        int cell = startCell;
+        path.add(board.getTile(cell));
+        while (!isGoal(cell)) {
+            int next = -1;
+            int count = board.getNeighbours(cell, neighbours);
+            for (int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                if ((isTraversable(neighbour) || isGoal(neighbour)) && (next < 0 || costs.get(neighbour) < costs.get(next)))
+                    next = neighbour;
+            }
+            if (next < 0 || costs.get(next) >= costs.get(cell) || path.size() > board.size())
+                return Collections.emptyList();
+            cell = next;
+            path.add(board.getTile(cell));
+        }
+        return path;
+    }
+
+    private void push(int cell) {
+        int cost = Math.min(costs.get(cell), lookaheads.get(cell));
+        openTiles.push(cell, cost + distance(startCell, cell) + keyModifier, cost);
+    }
+
+    /**
+     * Compare keys with the key of the start
+     */
+    private boolean lessThanStart(double primaryKey, double secondaryKey) {
+        int cost = Math.min(costs.get(startCell), lookaheads.get(startCell));
+        double startPrimaryKey = (double) cost + keyModifier;
+        return primaryKey < startPrimaryKey || (primaryKey == startPrimaryKey && secondaryKey < cost);
+    }
+
+    private boolean isGoal(int cell) {
+        return sensor.getBoundaryTiles().getLevel(cell) == goalLevel;
+    }
+
+    private boolean isTraversable(int cell) {
+        return sensor.getDiscovered().get(cell);
+    }
+
+    /**
+     * Manhattan distance between two cells
+     */
+    private int distance(int cell, int other) {
+        int height = sensor.getBoard().getHeight();
+        return Math.abs(cell / height - other / height) + Math.abs(cell % height - other % height);
+    }
+}
@@ -0,0 +1,174 @@
+package controller;
+
+import model.Board;
+import model.IntGrid;
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of cell indexes, ordered by a primary key and then by a secondary key.
+ * The position of every cell in the heap is indexed, so its keys can be updated or the cell removed in O(log n).
+ * The keys are stored with the cells in the heap, which grows with the number of cells it holds, and the positions
+ * in a grid chunked like the board, so the heap only takes memory around the cells which have been in it.
+ */
+class IndexedMinHeap {
+    private int[] heap = new int[16];
+    private double[] primaryKeys = new double[16];
+    private double[] secondaryKeys = new double[16];
+    private final IntGrid positions;
+    private int size;
+
+    /**
+     * IndexedMinHeap constructor
+     * @param board whose cells can be stored in the heap
+     */
+    IndexedMinHeap(Board board) {
+        positions = new IntGrid(board, -1);
+    }
+
+    /**
+     * Check if the heap can store the cells of a board
+     * @param board to compare with
+     * @return true if the board has the size of the board of the heap
+     */
+    boolean fits(Board board) {
+        return positions.fits(board);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int cell) {
+        return positions.get(cell) >= 0;
+    }
+
+    /**
+     * Remove all the cells of the heap, in O(size)
+     */
+    void clear() {
+        for (int i = 0; i < size; i++)
+            positions.set(heap[i], -1);
+        size = 0;
+    }
+
+    /**
+     * Insert a cell in the heap, or update its keys if it is already in
+     * @param cell to insert or update
+     * @param primaryKey of the cell
+     * @param secondaryKey of the cell, used when the primary keys are equal
+     */
+    void push(int cell, double primaryKey, double secondaryKey) {
+        int position = positions.get(cell);
+        if (position < 0) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+                primaryKeys = Arrays.copyOf(primaryKeys, size * 2);
+                secondaryKeys = Arrays.copyOf(secondaryKeys, size * 2);
+            }
+            position = size++;
+        }
+        siftUp(position, cell, primaryKey, secondaryKey);
+        position = positions.get(cell);
+        siftDown(position, cell, primaryKeys[position], secondaryKeys[position]);
+    }
+
+    /**
+     * Get the cell with the lowest keys without removing it
+     * @return the cell on top of the heap
+     */
+    int peek() {
+        return heap[0];
+    }
+
+    double peekPrimaryKey() {
+        return primaryKeys[0];
+    }
+
+    double peekSecondaryKey() {
+        return secondaryKeys[0];
+    }
+
+    /**
+     * Remove the cell with the lowest keys
+     * @return the removed cell
+     */
+    int poll() {
+        int cell = heap[0];
+        remove(cell);
+        return cell;
+    }
+
+    /**
+     * Remove a cell from the heap if it is in
+     * @param cell to remove
+     */
+    void remove(int cell) {
+        int position = positions.get(cell);
+        if (position < 0)
+            return;
+        positions.set(cell, -1);
+        size--;
+        if (position == size)
+            return;
+        int last = heap[size];
+        double primaryKey = primaryKeys[size];
+        double secondaryKey = secondaryKeys[size];
+        siftUp(position, last, primaryKey, secondaryKey);
+        position = positions.get(last);
+        siftDown(position, last, primaryKeys[position], secondaryKeys[position]);
+    }
+
+    /**
+     * Compare the keys of two cells
+     * @return true if the first keys are lower than the second ones
+     */
+    private static boolean less(double primaryKey, double secondaryKey, double otherPrimaryKey, double otherSecondaryKey) {
+        if (primaryKey != otherPrimaryKey)
+            return primaryKey < otherPrimaryKey;
+        return secondaryKey < otherSecondaryKey;
+    }
+
+    /**
+     * Place a cell at a position of the heap, or above it while its keys are lower than the keys of its parent
+     */
+    private void siftUp(int position, int cell, double primaryKey, double secondaryKey) {
+        while (position > 0) {
+            int parentPosition = (position - 1) >>> 1;
+            if (!less(primaryKey, secondaryKey, primaryKeys[parentPosition], secondaryKeys[parentPosition]))
+                break;
+            place(position, heap[parentPosition], primaryKeys[parentPosition], secondaryKeys[parentPosition]);
+            position = parentPosition;
+        }
+        place(position, cell, primaryKey, secondaryKey);
+    }
+
+    /**
+     * Place a cell at a position of the heap, or below it while the keys of its lowest child are lower than its keys
+     */
+    private void siftDown(int position, int cell, double primaryKey, double secondaryKey) {
+        int half = size >>> 1;
+        while (position < half) {
+            int childPosition = 2 * position + 1;
+            int rightPosition = childPosition + 1;
+            if (rightPosition < size && less(primaryKeys[rightPosition], secondaryKeys[rightPosition],
+                    primaryKeys[childPosition], secondaryKeys[childPosition]))
+                childPosition = rightPosition;
+            if (!less(primaryKeys[childPosition], secondaryKeys[childPosition], primaryKey, secondaryKey))
+                break;
+            place(position, heap[childPosition], primaryKeys[childPosition], secondaryKeys[childPosition]);
+            position = childPosition;
+        }
+        place(position, cell, primaryKey, secondaryKey);
+    }
+
+    private void place(int position, int cell, double primaryKey, double secondaryKey) {
+        heap[position] = cell;
+        primaryKeys[position] = primaryKey;
+        secondaryKeys[position] = secondaryKey;
+        positions.set(cell, position);
+    }
+}
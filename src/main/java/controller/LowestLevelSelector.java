@@ -0,0 +1,26 @@
+package controller;
+
+import model.Tile;
+import java.util.SplittableRandom;
+
+/**
+ * Class that chooses a random boundary tile among the ones of the lowest probability level
+ */
+public class LowestLevelSelector implements TargetSelector {
+
+    private final Sensor sensor;
+
+    public LowestLevelSelector(Sensor sensor) {
+        this.sensor = sensor;
+    }
+
+    @Override
+    public Tile selectTarget() {
+        FrontierIndex boundaryTiles = sensor.getBoundaryTiles();
+        int level = boundaryTiles.getMinLevel();
+        if (level < 0)
+            return null;
+        SplittableRandom rand = sensor.getTieBreaking();
+        return sensor.getBoard().getTile(boundaryTiles.get(level, rand.nextInt(boundaryTiles.size(level))));
+    }
+}
@@ -1,76 +1,269 @@
 package controller;
 
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.Slider;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.ToggleButton;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.StackPane;
+import javafx.util.Duration;
 import lombok.Getter;
 import lombok.Setter;
-import model.Action;
 import model.Board;
+import model.BoardListener;
+import model.LevelFile;
 import model.Tile;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.ResourceBundle;
-import model.Character;
+import view.CanvasBoardView;
+import view.GridBoardView;
+import view.TrailAnimation;
 
 /**
  * Class that represents the controller of the main window
  */
 public class MainWindowController implements Initializable {
 
+    /**
+     * System property used to choose the view of the board, "grid" or "canvas"
+     */
+    public static final String RENDERER_PROPERTY = "magicmaze.renderer";
+    /**
+     * System property used to animate the way of the character, "true" by default
+     */
+    public static final String ANIMATION_PROPERTY = "magicmaze.animation";
+    /**
+     * System property giving the file of a fixed level the game starts on
+     */
+    public static final String LEVEL_PROPERTY = "magicmaze.level";
+
+    @FXML
+    private StackPane boardPane;
     @FXML
     private GridPane gridPane;
     @FXML
     private Button moveButton;
+    @FXML
+    private ToggleButton autoPlayButton;
+    @FXML
+    private Slider rateSlider;
+    @FXML
+    private CheckBox turboCheckBox;
+    @FXML
+    private Spinner<Integer> renderEverySpinner;
+    @FXML
+    private Label stepsPerSecondLabel;
     @Getter @Setter
     private Board board;
-    private Character character;
+    private Simulation simulation;
+    private TrailAnimation trailAnimation;
+    private PlannerService plannerService;
+    private Timeline autoPlay;
+    private long lastStepsPlayed;
 
     @Override
     public void initialize(java.net.URL location, ResourceBundle resources) {
-        this.board = new Board(3, 3);
-
-        for(int i = 0; i < board.getWidth(); i++) {
-            for(int j = 0; j < board.getHeight(); j++) {
-                Tile tile = board.getTile(i, j);
-                tile.setHeight(200);
-                tile.setWidth(200);
-                gridPane.add(board.getTile(i, j), i, j);
-            }
+        EpisodeReplay replay = openReplay();
+        LevelFile level = openLevel();
+        if (level != null)
+            this.board = level.getBoard();
+        else if (replay != null)
+            this.board = new Board(replay.getHeight(), replay.getWidth(), replay.getSeed(), replay.isChunked());
+        else
+            this.board = new Board(3, 3);
+
+        BoardListener boardView = createBoardView();
+        board.setListener(boardView);
+        boardView.boardChanged(board);
+
+        if (Boolean.parseBoolean(System.getProperty(ANIMATION_PROPERTY, "true"))) {
+            trailAnimation = new TrailAnimation();
+            if (boardView instanceof CanvasBoardView)
+                trailAnimation.setViewport(((CanvasBoardView) boardView).getViewport());
+            boardPane.getChildren().add(trailAnimation.getLayer());
         }
 
-        board.generateItems();
-
-        character = new Character(board);
-        moveButton.setOnAction(event -> {
-            if (character.getSensor().getTile().isPortal()) {
-                board.updateBoardSize(gridPane, character, board.getHeight() + 1, board.getWidth() + 1);
-                character.nextLevel();
-            } else if (character.getSensor().getTile().isCrevasse() || character.getSensor().getTile().isMonster()) {
-                character.die();
-
-                Alert alert = new Alert(Alert.AlertType.CONFIRMATION, "Voulez-vous rejouer ?", ButtonType.YES, ButtonType.NO);
-                alert.setTitle("Game Over");
-                alert.setHeaderText("Vous êtes mort !");
-                alert.showAndWait();
-                if (alert.getResult() == ButtonType.YES) {
-                    board.updateBoardSize(gridPane, character, 3, 3);
-                    character.getSensor().nextLevel();
-                } else {
-                    // Kill GUI Thread
-                    Platform.exit();
-                    // Kill the JVM
-                    System.exit(0);
-                }
-            } else {
-                List<Action> actions = character.getDecision().makeRule();
-                character.getEffector().doActions(character, actions);
-                character.getSensor().update();
-            }
+        simulation = level != null ? new Simulation(board, level.getStartTile()) : new Simulation(board);
+        try {
+            // A game started on a level file is replayed from the same file
+            Path levelFile = level != null ? Paths.get(System.getProperty(LEVEL_PROPERTY)) : null;
+            simulation.setRecorder(EpisodeRecorder.fromConfiguration(board, levelFile));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (replay != null)
+            replay.seek(simulation, Long.getLong(EpisodeReplay.STEP_PROPERTY, 0));
+        plannerService = new PlannerService(simulation, this::stepPlayed);
+        // The steps change the board on the planner thread until they are published
+        if (boardView instanceof CanvasBoardView)
+            ((CanvasBoardView) boardView).setBoardBusy(plannerService::isRunning);
+        moveButton.setOnAction(event -> plannerService.requestStep());
+
+        // The key frame lasts one second, so the rate of the timeline is the number of steps per second
+        autoPlay = new Timeline(new KeyFrame(Duration.seconds(1), event -> autoStep()));
+        autoPlay.setCycleCount(Animation.INDEFINITE);
+        autoPlay.setRate(rateSlider.getValue());
+        rateSlider.valueProperty().addListener((observable, oldRate, rate) -> autoPlay.setRate(rate.doubleValue()));
+        autoPlayButton.setOnAction(event -> {
+            if (autoPlayButton.isSelected())
+                autoPlay.play();
+            else
+                stopAutoPlay();
         });
+
+        Timeline stepsPerSecond = new Timeline(new KeyFrame(Duration.seconds(1), event -> {
+            long stepsPlayed = plannerService.getStepsPlayed();
+            stepsPerSecondLabel.setText((stepsPlayed - lastStepsPlayed) + " pas/s");
+            lastStepsPlayed = stepsPlayed;
+        }));
+        stepsPerSecond.setCycleCount(Animation.INDEFINITE);
+        stepsPerSecond.play();
+    }
+
+    /**
+     * Open the game to replay given by the magicmaze.replay system property
+     * @return the replay, or null if no game is replayed
+     */
+    private EpisodeReplay openReplay() {
+        String file = System.getProperty(EpisodeReplay.PROPERTY);
+        if (file == null)
+            return null;
+        try {
+            return new EpisodeReplay(Paths.get(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Load the level given by the magicmaze.level system property
+     * @return the level, or null if the game starts on a random level
+     */
+    private LevelFile openLevel() {
+        String file = System.getProperty(LEVEL_PROPERTY);
+        if (file == null)
+            return null;
+        try {
+            return LevelFile.load(Paths.get(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stop the steps and close the recorded and the replayed games
+     * @throws IOException if the recorded game can not be written
+     */
+    public void close() throws IOException {
+        plannerService.shutdown();
+        if (simulation.getReplay() != null)
+            simulation.getReplay().close();
+        if (simulation.getRecorder() != null)
+            simulation.getRecorder().close();
+    }
+
+    /**
+     * Play the next step of the auto-play. In turbo mode, the steps follow each other as fast as possible
+     * and the board is only redrawn every renderEverySpinner steps, or on a change of level if it is 0.
+     */
+    private void autoStep() {
+        if (!turboCheckBox.isSelected()) {
+            plannerService.requestStep();
+        } else if (!plannerService.isRunning()) {
+            int renderEvery = renderEverySpinner.getValue();
+            plannerService.requestSteps(renderEvery > 0 ? renderEvery : Integer.MAX_VALUE);
+        }
     }
-}
 
+    /**
+     * Stop the auto-play and cancel its steps
+     */
+    private void stopAutoPlay() {
+        autoPlay.stop();
+        autoPlayButton.setSelected(false);
+        plannerService.cancel();
+    }
+
+    /**
+     * Method called once a step has been played by the planner service.
+     * When the character has gone through several tiles, its way is animated before the board is redrawn,
+     * except during the auto-play. A death or the end of a replayed game stops the auto-play, like the button.
+     * @param outcome of the step
+     * @param publish publishes the changes of the board
+     */
+    private void stepPlayed(Simulation.Outcome outcome, Runnable publish) {
+        boolean autoPlaying = autoPlayButton.isSelected();
+        List<Tile> trail = simulation.getCharacter().getEffector().getTrail();
+        if (!autoPlaying && trailAnimation != null && outcome == Simulation.Outcome.MOVED && trail.size() > 2) {
+            trailAnimation.play(board, trail, publish);
+        } else if (outcome == Simulation.Outcome.DEAD || outcome == Simulation.Outcome.FINISHED) {
+            if (autoPlaying)
+                stopAutoPlay();
+            plannerService.cancel();
+            publish.run();
+            if (outcome == Simulation.Outcome.DEAD)
+                gameOver();
+        } else {
+            publish.run();
+            if (autoPlaying && turboCheckBox.isSelected())
+                autoStep();
+        }
+    }
+
+    /**
+     * Ask the player whether to play again after the death of the character
+     */
+    private void gameOver() {
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION, "Voulez-vous rejouer ?", ButtonType.YES, ButtonType.NO);
+        alert.setTitle("Game Over");
+        alert.setHeaderText("Vous êtes mort !");
+        alert.showAndWait();
+        if (alert.getResult() == ButtonType.YES) {
+            simulation.restart();
+        } else {
+            try {
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // Kill GUI Thread
+            Platform.exit();
+            // Kill the JVM
+            System.exit(0);
+        }
+    }
+
+    /**
+     * Create the view of the board chosen by the magicmaze.renderer system property.
+     * The grid view has one node per tile, the canvas view only paints the visible part of the board onto one Canvas,
+     * can be zoomed and moved, and is faster on large levels.
+     * @return the view of the board
+     */
+    private BoardListener createBoardView() {
+        String renderer = System.getProperty(RENDERER_PROPERTY, "grid");
+        switch (renderer) {
+            case "grid":
+                return new GridBoardView(gridPane);
+            case "canvas":
+                CanvasBoardView canvasView = new CanvasBoardView(boardPane.getPrefWidth(), boardPane.getPrefHeight());
+                boardPane.getChildren().setAll(canvasView.getCanvas());
+                return canvasView;
+            default:
+                throw new IllegalArgumentException("Unknown renderer: " + renderer);
+        }
+    }
+}
@@ -0,0 +1,528 @@
+package controller;
+
+import lombok.Getter;
+import model.BitGrid;
+import model.Board;
+import model.IntGrid;
+import model.Tile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class that chooses the target of the decision by Monte Carlo rollouts.
+ * The candidates are the closest boundary tiles of the lowest probability level, the rollouts are too noisy to trade
+ * a higher level against a better position. Every rollout samples the hazards of the boundary tiles from their
+ * probabilities until they agree with the wind and the smell of the discovered tiles, the rollout is rejected and
+ * counted in rejectedRollouts if no sample agrees after MAX_ATTEMPTS attempts. Otherwise it goes to a candidate,
+ * then plays a few more targets with a simple policy: the closest boundary tile proven safe by a neighbour without
+ * wind and smell, throwing a rock when a monster is not excluded. The tiles beyond the boundary are sampled with
+ * the density of the generation, and the portal is drawn among the undiscovered empty tiles.
+ * A rollout scores the moves, the rocks, the death and the portal like the effector, the character and the decision,
+ * and the candidate with the best mean score is chosen.
+ * The rollouts are split in SLICES slices, each with its own random stream split from the tie breaking of the sensor,
+ * played on a pool of threads of the selectors, so the choice only depends on the seed and not on the number of cores.
+ * A selection plays a fixed number of rollouts, a time budget can also be given, then the selection stops early once
+ * it is spent and is no longer reproducible. An interrupt of the calling thread stops the rollouts and no tile
+ * is chosen. The selector only reads the knowledge of the sensor, never the hazards of the board: the boundary tiles
+ * and their probabilities are copied on the calling thread, the discovered tiles and their percepts are read
+ * by the rollouts while the calling thread waits for them, so the sensor does not change during a selection.
+ * The sampled worlds are held in grids chunked like the board, so on a chunked board they only take memory
+ * around the tiles the rollouts reach.
+ */
+public class MonteCarloSelector implements TargetSelector {
+
+    /**
+     * System property giving the time budget of a selection in milliseconds, none by default
+     */
+    public static final String BUDGET_PROPERTY = "magicmaze.montecarlo.budget";
+    /**
+     * System property giving the maximum number of rollouts of every candidate
+     */
+    public static final String ROLLOUTS_PROPERTY = "magicmaze.montecarlo.rollouts";
+
+    static final int MAX_CANDIDATES = 16;
+    static final int CANDIDATE_LEVELS = 1;
+    static final int HORIZON = 8;
+    static final int MAX_ATTEMPTS = 32;
+    /**
+     * Number of slices of the rollouts, each played by one task with its own random stream
+     */
+    static final int SLICES = 8;
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(
+            Math.min(SLICES, Runtime.getRuntime().availableProcessors()), runnable -> {
+                Thread thread = new Thread(runnable, "montecarlo");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private static final double HAZARD_DENSITY = 0.2;
+    private static final byte EMPTY = 0;
+    private static final byte CREVASSE = 1;
+    private static final byte MONSTER = 2;
+    private static final byte WINDY = 1;
+    private static final byte BAD_SMELLING = 2;
+
+    private final Sensor sensor;
+    private final long budgetNanos;
+    private final int rollouts;
+    private Worker[] workers = new Worker[0];
+    /**
+     * Number of rollouts rejected since the creation of the selector, because no sample of the boundary tiles
+     * agreed with the percepts
+     */
+    @Getter
+    private long rejectedRollouts;
+    private final List<Callable<Void>> tasks = new ArrayList<>();
+    private long selectionStart;
+
+    private Board board;
+    private int start;
+    private int undiscovered;
+    private int[] frontierCells = new int[16];
+    private double[] hazardProbabilities = new double[16];
+    private double[] monsterProbabilities = new double[16];
+    private int frontierCount;
+    private int[] constraintCells = new int[16];
+    private int constraintCount;
+    private final int[] candidates = new int[MAX_CANDIDATES];
+    private final long[] candidateKeys = new long[MAX_CANDIDATES];
+    private final int[] candidateDistances = new int[MAX_CANDIDATES];
+    private final boolean[] candidateThrows = new boolean[MAX_CANDIDATES];
+    private int candidateCount;
+    private IntGrid distances;
+    private int[] queue = new int[16];
+    private IntGrid constrained;
+    private int selection;
+    private final int[] neighbours = new int[4];
+
+    /**
+     * MonteCarloSelector constructor, the budget and the number of rollouts come from the system properties,
+     * no budget and 256 rollouts by default
+     * @param sensor whose knowledge is sampled
+     */
+    public MonteCarloSelector(Sensor sensor) {
+        this(sensor, TimeUnit.MILLISECONDS.toNanos(Long.getLong(BUDGET_PROPERTY, 0)), Integer.getInteger(ROLLOUTS_PROPERTY, 256));
+    }
+
+    /**
+     * MonteCarloSelector constructor
+     * @param sensor whose knowledge is sampled
+     * @param budgetNanos time budget of a selection, 0 for none, the first rollout of every candidate is always played
+     * @param rollouts number of rollouts of every candidate
+     */
+    public MonteCarloSelector(Sensor sensor, long budgetNanos, int rollouts) {
+        this.sensor = sensor;
+        this.budgetNanos = budgetNanos;
+        this.rollouts = rollouts;
+    }
+
+    @Override
+    public Tile selectTarget() {
+        selectionStart = System.nanoTime();
+        FrontierIndex boundaryTiles = sensor.getBoundaryTiles();
+        int minLevel = boundaryTiles.getMinLevel();
+        if (minLevel < 0)
+            return null;
+        board = sensor.getBoard();
+        snapshot(boundaryTiles, minLevel);
+        if (Thread.currentThread().isInterrupted())
+            return null;
+        if (candidateCount <= 1)
+            return candidateCount == 0 ? null : board.getTile(candidates[0]);
+
+        SplittableRandom random = sensor.getTieBreaking();
+        int slices = Math.max(1, Math.min(SLICES, rollouts));
+        if (workers.length != slices || !workers[0].hazards.fits(board)) {
+            workers = new Worker[slices];
+            tasks.clear();
+            for (int i = 0; i < slices; i++) {
+                Worker worker = new Worker(board);
+                workers[i] = worker;
+                tasks.add(() -> {
+                    worker.run();
+                    return null;
+                });
+            }
+        }
+        for (Worker worker : workers) {
+            worker.random = random.split();
+            worker.rollouts = (rollouts + slices - 1) / slices;
+        }
+        try {
+            for (Future<Void> future : POOL.invokeAll(tasks))
+                future.get();
+        } catch (InterruptedException e) {
+            // The step is cancelled by the caller
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+
+        // The closest candidate is chosen if every rollout has been rejected
+        int best = 0;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (Worker worker : workers)
+            rejectedRollouts += worker.rejected;
+        for (int c = 0; c < candidateCount; c++) {
+            double sum = 0;
+            int count = 0;
+            for (Worker worker : workers) {
+                sum += worker.sums[c];
+                count += worker.counts[c];
+            }
+            if (count > 0 && sum / count > bestScore) {
+                best = c;
+                bestScore = sum / count;
+            }
+        }
+        return board.getTile(candidates[best]);
+    }
+
+    /**
+     * Copy the knowledge read by the rollouts: the boundary tiles and their probabilities, the discovered tiles next to
+     * them, whose percepts constrain the samples, and the candidates, ordered by level then by distance
+     */
+    private void snapshot(FrontierIndex boundaryTiles, int minLevel) {
+        BitGrid discovered = sensor.getDiscovered();
+        start = sensor.getTile().getIndex();
+        undiscovered = board.size() - discovered.cardinality();
+        if (distances == null || !distances.fits(board)) {
+            distances = new IntGrid(board, -1);
+            constrained = new IntGrid(board, 0);
+        } else {
+            distances.fill();
+        }
+
+        // Distances from the character through the discovered tiles
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        distances.set(start, 0);
+        while (head < tail) {
+            if (Thread.currentThread().isInterrupted())
+                return;
+            int cell = queue[head++];
+            int count = board.getNeighbours(cell, neighbours);
+            for (int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                if (distances.get(neighbour) < 0 && discovered.get(neighbour)) {
+                    distances.set(neighbour, distances.get(cell) + 1);
+                    if (tail == queue.length)
+                        queue = Arrays.copyOf(queue, tail * 2);
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+
+        frontierCount = 0;
+        constraintCount = 0;
+        candidateCount = 0;
+        selection++;
+        int lastLevel = Math.min(FrontierIndex.LEVELS - 1, minLevel + CANDIDATE_LEVELS - 1);
+        for (int level = 0; level < FrontierIndex.LEVELS; level++) {
+            for (int i = 0; i < boundaryTiles.size(level); i++) {
+                int cell = boundaryTiles.get(level, i);
+                double monsterProbability = boundaryTiles.getMonsterProbability(cell);
+                addFrontierCell(cell, boundaryTiles.getProbability(cell), monsterProbability);
+                int distance = Integer.MAX_VALUE;
+                int count = board.getNeighbours(cell, neighbours);
+                for (int j = 0; j < count; j++) {
+                    int neighbour = neighbours[j];
+                    if (discovered.get(neighbour)) {
+                        addConstraintCell(neighbour);
+                        if (distances.get(neighbour) >= 0)
+                            distance = Math.min(distance, distances.get(neighbour) + 1);
+                    }
+                }
+                if (level <= lastLevel && distance != Integer.MAX_VALUE)
+                    addCandidate(cell, (long) level * board.size() + distance, distance, monsterProbability > 0);
+            }
+        }
+    }
+
+    private void addFrontierCell(int cell, double probability, double monsterProbability) {
+        if (frontierCount == frontierCells.length) {
+            frontierCells = Arrays.copyOf(frontierCells, frontierCount * 2);
+            hazardProbabilities = Arrays.copyOf(hazardProbabilities, frontierCount * 2);
+            monsterProbabilities = Arrays.copyOf(monsterProbabilities, frontierCount * 2);
+        }
+        frontierCells[frontierCount] = cell;
+        hazardProbabilities[frontierCount] = probability;
+        monsterProbabilities[frontierCount] = monsterProbability;
+        frontierCount++;
+    }
+
+    private void addConstraintCell(int cell) {
+        if (constrained.get(cell) == selection)
+            return;
+        constrained.set(cell, selection);
+        if (constraintCount == constraintCells.length)
+            constraintCells = Arrays.copyOf(constraintCells, constraintCount * 2);
+        constraintCells[constraintCount++] = cell;
+    }
+
+    /**
+     * Keep the MAX_CANDIDATES candidates of lowest key, sorted by key
+     * @param key of the candidate, its level then its distance
+     */
+    private void addCandidate(int cell, long key, int distance, boolean throwRock) {
+        if (candidateCount == MAX_CANDIDATES && key >= candidateKeys[MAX_CANDIDATES - 1])
+            return;
+        int position = Math.min(candidateCount, MAX_CANDIDATES - 1);
+        while (position > 0 && candidateKeys[position - 1] > key) {
+            candidates[position] = candidates[position - 1];
+            candidateKeys[position] = candidateKeys[position - 1];
+            candidateDistances[position] = candidateDistances[position - 1];
+            candidateThrows[position] = candidateThrows[position - 1];
+            position--;
+        }
+        candidates[position] = cell;
+        candidateKeys[position] = key;
+        candidateDistances[position] = distance;
+        candidateThrows[position] = throwRock;
+        candidateCount = Math.min(candidateCount + 1, MAX_CANDIDATES);
+    }
+
+    /**
+     * Rollouts of a thread, with its own random stream and its own sampled world.
+     * The arrays are stamped with the number of the rollout instead of being cleared.
+     */
+    private final class Worker {
+        private SplittableRandom random;
+        private int rollouts;
+        private final IntGrid hazards;
+        private final IntGrid percepts;
+        private final IntGrid sampled;
+        private final IntGrid visited;
+        private final IntGrid reached;
+        private int[] queue = new int[16];
+        private final IntGrid distances;
+        private final double[] sums = new double[MAX_CANDIDATES];
+        private final int[] counts = new int[MAX_CANDIDATES];
+        private final int[] neighbours = new int[4];
+        private final int[] around = new int[4];
+        private int stamp;
+        private int search;
+        private int discoveredCount;
+        private int rejected;
+        private int target;
+        private int distance;
+        private boolean throwRock;
+
+        private Worker(Board board) {
+            hazards = new IntGrid(board, EMPTY);
+            percepts = new IntGrid(board, 0);
+            sampled = new IntGrid(board, 0);
+            visited = new IntGrid(board, 0);
+            reached = new IntGrid(board, 0);
+            distances = new IntGrid(board, 0);
+        }
+
+        /**
+         * Play rounds of one rollout per candidate until the number of rollouts of the slice, or the time budget
+         * of the selection if there is one
+         */
+        private void run() {
+            Arrays.fill(sums, 0);
+            Arrays.fill(counts, 0);
+            rejected = 0;
+            for (int round = 0; round < rollouts; round++) {
+                // The task is cancelled when the selection is interrupted
+                if (Thread.currentThread().isInterrupted())
+                    return;
+                for (int c = 0; c < candidateCount; c++) {
+                    if (!sampleFrontier()) {
+                        rejected++;
+                        continue;
+                    }
+                    sums[c] += rollout(c);
+                    counts[c]++;
+                }
+                if (budgetNanos > 0 && System.nanoTime() - selectionStart >= budgetNanos)
+                    return;
+            }
+        }
+
+        /**
+         * Play a candidate then the policy in the world sampled by sampleFrontier
+         * @return the change of the evaluation during the rollout
+         */
+        private double rollout(int candidate) {
+            discoveredCount = 0;
+            target = candidates[candidate];
+            distance = candidateDistances[candidate];
+            throwRock = candidateThrows[candidate];
+            double value = 0;
+            for (int decision = 0; ; decision++) {
+                value -= distance;
+                int hazard = hazard(target);
+                if (throwRock) {
+                    value -= 10;
+                    if (hazard == MONSTER) {
+                        hazard = EMPTY;
+                        hazards.set(target, EMPTY);
+                    }
+                }
+                if (hazard != EMPTY)
+                    return value - 10.0 * board.getHeight() * board.getWidth();
+                discover(target);
+                double remainingEmpty = Math.max(1, (undiscovered - discoveredCount) * (1 - HAZARD_DENSITY));
+                if (random.nextDouble() * remainingEmpty < 1)
+                    return value + 10.0 * (board.getHeight() + 1) * (board.getWidth() + 1);
+                if (decision == HORIZON || !chooseNext(target))
+                    return value;
+            }
+        }
+
+        /**
+         * Start a new world and sample the hazards of the boundary tiles from their probabilities, until they agree
+         * with the percepts of the discovered tiles or MAX_ATTEMPTS samples have been drawn
+         * @return false if no sample agrees with the percepts, the world must then not be played
+         */
+        private boolean sampleFrontier() {
+            if (++stamp == Integer.MAX_VALUE) {
+                sampled.fill();
+                visited.fill();
+                stamp = 1;
+            }
+            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                for (int i = 0; i < frontierCount; i++) {
+                    int cell = frontierCells[i];
+                    double draw = random.nextDouble();
+                    sampled.set(cell, stamp);
+                    hazards.set(cell, draw < monsterProbabilities[i] ? MONSTER
+                            : draw < hazardProbabilities[i] ? CREVASSE : EMPTY);
+                }
+                if (isConsistent())
+                    return true;
+            }
+            return false;
+        }
+
+        private boolean isConsistent() {
+            for (int i = 0; i < constraintCount; i++) {
+                int cell = constraintCells[i];
+                boolean crevasse = false;
+                boolean monster = false;
+                int count = board.getNeighbours(cell, neighbours);
+                for (int j = 0; j < count; j++) {
+                    int neighbour = neighbours[j];
+                    if (!isDiscovered(neighbour)) {
+                        crevasse |= hazard(neighbour) == CREVASSE;
+                        monster |= hazard(neighbour) == MONSTER;
+                    }
+                }
+                if (crevasse != sensor.getWindy().get(cell) || monster != sensor.getBadSmelling().get(cell))
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * Get the sampled hazard of an undiscovered tile, a tile beyond the boundary is drawn the first time
+         * with the density of the generation
+         */
+        private int hazard(int cell) {
+            if (sampled.get(cell) != stamp) {
+                sampled.set(cell, stamp);
+                hazards.set(cell, random.nextDouble() >= HAZARD_DENSITY ? EMPTY
+                        : random.nextBoolean() ? CREVASSE : MONSTER);
+            }
+            return hazards.get(cell);
+        }
+
+        private boolean isDiscovered(int cell) {
+            return visited.get(cell) == stamp || sensor.getDiscovered().get(cell);
+        }
+
+        private boolean isWindy(int cell) {
+            return visited.get(cell) == stamp ? (percepts.get(cell) & WINDY) != 0 : sensor.getWindy().get(cell);
+        }
+
+        private boolean isBadSmelling(int cell) {
+            return visited.get(cell) == stamp ? (percepts.get(cell) & BAD_SMELLING) != 0 : sensor.getBadSmelling().get(cell);
+        }
+
+        /**
+         * Discover a tile of the sampled world and perceive the hazards around it
+         */
+        private void discover(int cell) {
+            visited.set(cell, stamp);
+            discoveredCount++;
+            int perceived = 0;
+            int count = board.getNeighbours(cell, neighbours);
+            for (int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                if (isDiscovered(neighbour))
+                    continue;
+                int hazard = hazard(neighbour);
+                if (hazard == CREVASSE)
+                    perceived |= WINDY;
+                else if (hazard == MONSTER)
+                    perceived |= BAD_SMELLING;
+            }
+            percepts.set(cell, perceived);
+        }
+
+        /**
+         * Choose the next target of the policy: the closest boundary tile proven safe, else the closest one without
+         * a crevasse, else the closest one
+         * @param from tile of the character
+         * @return false if no boundary tile can be reached
+         */
+        private boolean chooseNext(int from) {
+            if (++search == Integer.MAX_VALUE) {
+                reached.fill();
+                search = 1;
+            }
+            int bestRisk = 3;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = from;
+            reached.set(from, search);
+            distances.set(from, 0);
+            while (head < tail && bestRisk > 0) {
+                int cell = queue[head++];
+                int count = board.getNeighbours(cell, neighbours);
+                for (int i = 0; i < count && bestRisk > 0; i++) {
+                    int neighbour = neighbours[i];
+                    if (reached.get(neighbour) == search)
+                        continue;
+                    reached.set(neighbour, search);
+                    if (isDiscovered(neighbour)) {
+                        distances.set(neighbour, distances.get(cell) + 1);
+                        if (tail == queue.length)
+                            queue = Arrays.copyOf(queue, tail * 2);
+                        queue[tail++] = neighbour;
+                        continue;
+                    }
+                    boolean noCrevasse = false;
+                    boolean noMonster = false;
+                    int aroundCount = board.getNeighbours(neighbour, around);
+                    for (int j = 0; j < aroundCount; j++) {
+                        if (isDiscovered(around[j])) {
+                            noCrevasse |= !isWindy(around[j]);
+                            noMonster |= !isBadSmelling(around[j]);
+                        }
+                    }
+                    int risk = noCrevasse ? (noMonster ? 0 : 1) : 2;
+                    if (risk < bestRisk) {
+                        bestRisk = risk;
+                        target = neighbour;
+                        distance = distances.get(cell) + 1;
+                        throwRock = !noMonster;
+                    }
+                }
+            }
+            return bestRisk < 3;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package controller;
+
+import model.Tile;
+import java.util.List;
+
+/**
+ * Interface of the algorithms used by the decision to find a way between two tiles
+ */
+public interface PathPlanner {
+
+    /**
+     * System property used to choose the planner of the decision
+     */
+    String PROPERTY = "magicmaze.planner";
+
+    /**
+     * Find a way between two tiles
+     * @param start tile of the way
+     * @param goal tile of the way
+     * @return the tiles of the way from start to goal, or an empty list if there is no way
+     */
+    List<Tile> findPath(Tile start, Tile goal);
+
+    /**
+     * Check if the planner chooses its own goal, the decision then selects no target and the goal given to findPath
+     * is ignored
+     * @return true if the planner goes to a goal of its own
+     */
+    default boolean choosesGoal() {
+        return false;
+    }
+
+    /**
+     * Create a planner from its name
+     * @param name of the planner, "bidirectional", "astar" or "incremental"
+     * @param sensor whose board the planner searches
+     * @return the planner
+     */
+    static PathPlanner create(String name, Sensor sensor) {
+        switch (name) {
+            case "bidirectional":
+                return new BidirectionalSearch(sensor);
+            case "astar":
+                return new AStarSearch(sensor);
+            case "incremental":
+                return new IncrementalPlanner(sensor);
+            default:
+                throw new IllegalArgumentException("Unknown path planner: " + name);
+        }
+    }
+
+    /**
+     * Create the planner chosen by the magicmaze.planner system property, the bidirectional search by default
+     * @param sensor whose board the planner searches
+     * @return the planner
+     */
+    static PathPlanner fromConfiguration(Sensor sensor) {
+        return create(System.getProperty(PROPERTY, "bidirectional"), sensor);
+    }
+}
@@ -0,0 +1,149 @@
+package controller;
+
+import javafx.application.Platform;
+import model.Board;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Class that plays the steps of a simulation on a background thread, so the JavaFX application thread
+ * never waits for the sensor or the decision.
+ * A step runs in a batch of the board, so the views are not called during the step, and its outcome is given back
+ * on the JavaFX application thread, where the batch is published. At most one step runs and one step waits:
+ * the requests made while a step runs are merged into a single pending one, which starts once the running step
+ * has been published, so the board is never changed while the views read it.
+ * All the methods are called on the JavaFX application thread.
+ */
+public class PlannerService {
+
+    /**
+     * Interface used to receive the outcome of the steps
+     */
+    public interface Listener {
+
+        /**
+         * Method called on the JavaFX application thread when a step has been played.
+         * The changes of the board are not published yet, the listener has to run publish once it is ready,
+         * for example at the end of an animation.
+         * @param outcome of the step
+         * @param publish publishes the changes of the board and lets the next step start
+         */
+        void stepPlayed(Simulation.Outcome outcome, Runnable publish);
+    }
+
+    private final Simulation simulation;
+    private final Listener listener;
+    private final ExecutorService executor;
+    private volatile Thread worker;
+    private volatile long stepsPlayed;
+    private boolean running;
+    private boolean pending;
+
+    /**
+     * PlannerService constructor
+     * @param simulation whose steps are played
+     * @param listener receiving the outcome of the steps
+     */
+    public PlannerService(Simulation simulation, Listener listener) {
+        this.simulation = simulation;
+        this.listener = listener;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "planner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Ask for a step, which starts now or once the running step has been published
+     * @return true if the step starts now, false if it waits
+     */
+    public boolean requestStep() {
+        if (running) {
+            pending = true;
+            return false;
+        }
+        return requestSteps(1);
+    }
+
+    /**
+     * Play several steps in a single batch, which is published once, if no step is running.
+     * The steps stop early on a change of level, a death or a cancellation.
+     * @param count maximum number of steps
+     * @return true if the steps start, false if a step is already running
+     */
+    public boolean requestSteps(int count) {
+        if (running)
+            return false;
+        running = true;
+        Board board = simulation.getBoard();
+        executor.execute(() -> {
+            worker = Thread.currentThread();
+            board.beginBatch();
+            Simulation.Outcome outcome = Simulation.Outcome.CANCELLED;
+            try {
+                for (int i = 0; i < count; i++) {
+                    outcome = simulation.step();
+                    if (outcome == Simulation.Outcome.CANCELLED)
+                        break;
+                    // Only the planner thread writes the counter
+                    stepsPlayed++;
+                    if (outcome != Simulation.Outcome.MOVED)
+                        break;
+                }
+            } finally {
+                worker = null;
+                Thread.interrupted();
+                Simulation.Outcome played = outcome;
+                Platform.runLater(() -> listener.stepPlayed(played, () -> publish(board)));
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Get the number of steps played since the creation of the service, it can be read from any thread
+     * @return number of steps played
+     */
+    public long getStepsPlayed() {
+        return stepsPlayed;
+    }
+
+    /**
+     * Check if a step is running or waits to be published
+     * @return true until the running step has been published
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Cancel the pending step and interrupt the planning of the running step, which then does no action
+     */
+    public void cancel() {
+        pending = false;
+        Thread thread = worker;
+        if (thread != null)
+            thread.interrupt();
+    }
+
+    /**
+     * Cancel the steps and stop the background thread
+     */
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Publish the changes of the board of the last step and start the pending step, if any
+     */
+    private void publish(Board board) {
+        board.endBatch();
+        running = false;
+        if (pending) {
+            pending = false;
+            requestStep();
+        }
+    }
+}
@@ -1,37 +1,99 @@
 package controller;
 
-import javafx.scene.paint.Paint;
 import lombok.Getter;
 import lombok.Setter;
+import metrics.Metrics;
+import metrics.Phase;
+import model.BitGrid;
 import model.Board;
 import model.Tile;
-import java.util.*;
-import java.util.function.BiConsumer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
 /**
- * Class that represents the sensor of the character
+ * Class that represents the sensor of the character.
+ * The knowledge of the sensor is held in grids of bits indexed like the board: the discovered tiles,
+ * the boundary tiles, the tiles known to be safe and the discovered tiles which are windy or bad smelling.
+ * The probabilities of the boundary tiles come from a heuristic on their discovered neighbours, or from an exact
+ * inference on the whole boundary, chosen by the magicmaze.inference system property.
+ * When several characters explore a level together, the sensor can share its discoveries with theirs.
+ * The tiles shared by the others are only discovered once they join the tiles discovered by the sensor,
+ * so the boundary tiles are always reachable by the character.
  */
 public class Sensor {
 
+    /**
+     * System property used to choose how the probabilities are computed, "heuristic" or "exact"
+     */
+    public static final String INFERENCE_PROPERTY = "magicmaze.inference";
+
+    /**
+     * Levels of the heuristic on which the decision throws a rock before moving to the tile
+     */
+    private static final int MONSTER_LEVELS = 1 << 2 | 1 << 5 | 1 << 7 | 1 << 9;
+
     @Getter @Setter
     private Tile tile;
     @Getter @Setter
     private Board board;
+    @Getter
+    private final BitGrid discovered;
+    @Getter
+    private final BitGrid frontier;
+    @Getter
+    private final BitGrid safe;
+    @Getter
+    private final BitGrid windy;
+    @Getter
+    private final BitGrid badSmelling;
+    private final BitGrid clean;
+    @Getter
+    private FrontierIndex boundaryTiles;
+    private final FrontierInference inference;
     @Getter @Setter
-    private LinkedHashSet<Tile> discoveredTiles;
+    private SensorListener listener;
     @Getter @Setter
-    private TreeMap<Double, List<Tile>> boundaryTiles;
+    private SplittableRandom tieBreaking;
+    @Getter
+    private SharedDiscovery sharedDiscovery;
+    private int sharedPosition;
+    private BitGrid pending;
+    private int[] mergeStack = new int[16];
+    private final int[] mergeNeighbours = new int[4];
+    private final int[] neighbours = new int[4];
+    private final int[] frontierNeighbours = new int[4];
 
 
     public Sensor(Board board, Tile tile) {
         this.board = board;
         this.tile = tile;
-        tile.setStroke(Paint.valueOf("green"));
-        tile.setStrokeWidth(3);
-        discoveredTiles = new LinkedHashSet<>();
-        discoveredTiles.add(tile);
-        boundaryTiles = new TreeMap<>();
-        initBoundaryTiles();
+        discovered = new BitGrid(board.getHeight(), board.getWidth());
+        frontier = new BitGrid(board.getHeight(), board.getWidth());
+        safe = new BitGrid(board.getHeight(), board.getWidth());
+        windy = new BitGrid(board.getHeight(), board.getWidth());
+        badSmelling = new BitGrid(board.getHeight(), board.getWidth());
+        clean = new BitGrid(board.getHeight(), board.getWidth());
+        boundaryTiles = new FrontierIndex(board);
+        tieBreaking = board.getRandomStreams().getTieBreaking();
+        inference = createInference(System.getProperty(INFERENCE_PROPERTY, "heuristic"));
+        discover(tile);
+        infer();
+    }
+
+    /**
+     * Create the inference from its name
+     * @param name of the inference, "heuristic" or "exact"
+     * @return the exact inference, or null for the heuristic
+     */
+    private FrontierInference createInference(String name) {
+        switch (name) {
+            case "heuristic":
+                return null;
+            case "exact":
+                return new FrontierInference(this);
+            default:
+                throw new IllegalArgumentException("Unknown inference: " + name);
+        }
     }
 
     /**
@@ -50,347 +112,298 @@ public class Sensor {
         return tile.getYPosition();
     }
 
+    /**
+     * Share the discoveries of the sensor with the other characters of the level, the tiles already discovered
+     * are shared at once. The sharing stops at the next level.
+     * @param sharedDiscovery of the characters of the level, or null to stop sharing
+     */
+    public void setSharedDiscovery(SharedDiscovery sharedDiscovery) {
+        this.sharedDiscovery = sharedDiscovery;
+        sharedPosition = 0;
+        pending = sharedDiscovery != null ? new BitGrid(board.getHeight(), board.getWidth()) : null;
+        if (sharedDiscovery != null) {
+            for (int cell = discovered.nextSetBit(0); cell >= 0; cell = discovered.nextSetBit(cell + 1))
+                share(board.getTile(cell));
+        }
+    }
+
     /**
      * Method to initialize all variables when we change the level
      */
     public void nextLevel() {
-        discoveredTiles.clear();
-        discoveredTiles.add(tile);
-        tile.setStroke(Paint.valueOf("green"));
-        tile.setStrokeWidth(3);
-        boundaryTiles.clear();
-        initBoundaryTiles();
+        sharedDiscovery = null;
+        pending = null;
+        if (listener != null)
+            listener.knowledgeReset();
+        discovered.resize(board.getHeight(), board.getWidth());
+        frontier.resize(board.getHeight(), board.getWidth());
+        safe.resize(board.getHeight(), board.getWidth());
+        windy.resize(board.getHeight(), board.getWidth());
+        badSmelling.resize(board.getHeight(), board.getWidth());
+        clean.resize(board.getHeight(), board.getWidth());
+        boundaryTiles.resize(board.getHeight(), board.getWidth());
+        discover(tile);
+        infer();
     }
 
     /**
      * Method called to update variables when the character moves
      */
     public void update() {
-        discoveredTiles.add(tile);
-        tile.setStroke(Paint.valueOf("green"));
-        tile.setStrokeWidth(3);
-        boundaryTiles.firstEntry().getValue().remove(tile);
-        boundaryTiles.entrySet().removeIf(entry -> entry.getValue().isEmpty());
-        initBoundaryTiles();
+        long start = Metrics.start();
+        if (sharedDiscovery != null)
+            mergeSharedDiscoveries();
+        discover(tile);
+        if (sharedDiscovery != null)
+            mergePending(tile.getIndex());
+        infer();
+        Metrics.record(Phase.SENSOR_UPDATE, board.getWidth(), board.getHeight(), start);
+    }
+
+    /**
+     * Method called when the bad smelling or the wind of a tile has changed,
+     * the probabilities of its boundary neighbours are computed again
+     * @param changedTile whose perception has changed
+     */
+    public void perceptionChanged(Tile changedTile) {
+        if (!discovered.get(changedTile.getIndex()))
+            return;
+        windy.set(changedTile.getIndex(), changedTile.isWindy());
+        badSmelling.set(changedTile.getIndex(), changedTile.isBadSmelling());
+        int count = board.getNeighbours(changedTile.getIndex(), frontierNeighbours);
+        for (int i = 0; i < count; i++) {
+            if (boundaryTiles.contains(frontierNeighbours[i]))
+                updateProbability(frontierNeighbours[i]);
+        }
     }
 
     /**
-     * Method to initialize the boundary tiles
+     * Method to compute again the probabilities of all the boundary tiles
      */
-    private void initBoundaryTiles() {
-        board.getNeighbours(tile).forEach(neighbour -> {
-            if (!discoveredTiles.contains(neighbour)) {
-                if (tile.isWindy() || tile.isBadSmelling()) {
-                    if (tile.isOnlyWindy()) {
-                        if (!boundaryTiles.containsKey(0.3))
-                            boundaryTiles.put(0.3, new ArrayList<>());
+    public void computeProbabilities() {
+        computeKnowledge();
+        for (int cell = frontier.nextSetBit(0); cell >= 0; cell = frontier.nextSetBit(cell + 1)) {
+            if (safe.get(cell))
+                setProbability(cell, 0, 0);
+            else
+                updateProbability(cell);
+        }
+        infer();
+    }
 
-                        // Add only if the neighbour is not already in the boundary tiles with a lower probability
-                        if (tileNotExistsWithSameProbability(neighbour, 0.3) && tileNotExistsWithProbabilityZero(neighbour)) {
-                            boundaryTiles.get(0.3).add(neighbour);
-                            neighbour.setStroke(Paint.valueOf("blue"));
-                            neighbour.setStrokeWidth(3);
-                            neighbour.setProbability(0.3);
-                        }
-                    } else {
-                        if (!boundaryTiles.containsKey(0.2))
-                            boundaryTiles.put(0.2, new ArrayList<>());
+    /**
+     * Method to compute again the boundary tiles and the safe tiles from the discovered tiles, 64 cells at a time.
+     * The boundary tiles are the neighbours of the discovered tiles which are not discovered,
+     * the safe tiles are the discovered tiles and the neighbours of the discovered tiles which are neither windy
+     * nor bad smelling. The tiles found safe by the exact inference are only found again by the inference.
+     */
+    public void computeKnowledge() {
+        frontier.neighboursOf(discovered);
+        frontier.andNot(discovered);
 
-                        // Add only if the neighbour is not already in the boundary tiles with a lower probability
-                        if (tileNotExistsWithSameProbability(neighbour, 0.2) && tileNotExistsWithProbabilityZero(neighbour)) {
-                            boundaryTiles.get(0.2).add(neighbour);
-                            neighbour.setStroke(Paint.valueOf("blue"));
-                            neighbour.setStrokeWidth(3);
-                            neighbour.setProbability(0.2);
-                        }
-                    }
-                } else {
-                    if (!boundaryTiles.containsKey(0.0))
-                        boundaryTiles.put(0.0, new ArrayList<>());
+        clean.copy(discovered);
+        clean.andNot(windy);
+        clean.andNot(badSmelling);
+        safe.neighboursOf(clean);
+        safe.or(discovered);
+    }
 
-                    // Remove the neighbour from the boundary tiles if it is already into with higher probability
-                    if (tileAlreadyExistsWithHigherProbability(neighbour)) {
-                        boundaryTiles.values().forEach(tiles -> tiles.remove(neighbour));
-                    }
+    /**
+     * Add a tile to the discovered tiles. The tile leaves the boundary tiles and its undiscovered neighbours,
+     * which are the only boundary tiles whose discovered neighbours change, are (re)evaluated.
+     * @param discoveredTile the tile on which the character stands
+     */
+    private void discover(Tile discoveredTile) {
+        int cell = discoveredTile.getIndex();
+        discovered.set(cell);
+        safe.set(cell);
+        frontier.clear(cell);
+        windy.set(cell, discoveredTile.isWindy());
+        badSmelling.set(cell, discoveredTile.isBadSmelling());
+        // The tile of a death is not marked, so the other characters never take it for a safe tile
+        if (!discoveredTile.isCrevasse() && !discoveredTile.isMonster())
+            discoveredTile.setDiscovered(true);
+        if (sharedDiscovery != null)
+            share(discoveredTile);
+        boundaryTiles.remove(cell);
+        if (listener != null)
+            listener.cellChanged(cell);
+        board.draw(discoveredTile);
 
-                    if (tileNotExistsWithSameProbability(neighbour, 0.0)) {
-                        boundaryTiles.get(0.0).add(neighbour);
-                        neighbour.setStroke(Paint.valueOf("blue"));
-                        neighbour.setStrokeWidth(3);
-                        neighbour.setProbability(0.0);
-                    }
-                }
+        int count = board.getNeighbours(cell, frontierNeighbours);
+        for (int i = 0; i < count; i++) {
+            int neighbour = frontierNeighbours[i];
+            if (discovered.get(neighbour))
+                continue;
+            boolean newBoundaryTile = !frontier.get(neighbour);
+            frontier.set(neighbour);
+            updateProbability(neighbour);
+            if (newBoundaryTile) {
+                Tile boundaryTile = board.getTile(neighbour);
+                boundaryTile.setBoundary(true);
+                board.draw(boundaryTile);
             }
-        });
+        }
+    }
 
-        computeProbabilities(boundaryTiles);
+    /**
+     * Share a discovered tile with the other characters, unless it is the tile of a death
+     * @param discoveredTile to share
+     */
+    private void share(Tile discoveredTile) {
+        if (!discoveredTile.isCrevasse() && !discoveredTile.isMonster())
+            sharedDiscovery.publish(discoveredTile.getIndex());
+    }
+
+    /**
+     * Read the tiles shared by the other characters since the last update. The tiles next to a discovered tile
+     * are discovered with the pending tiles they join, the other ones wait in the pending tiles.
+     */
+    private void mergeSharedDiscoveries() {
+        for (int cell = sharedDiscovery.get(sharedPosition); cell >= 0; cell = sharedDiscovery.get(++sharedPosition)) {
+            if (discovered.get(cell))
+                continue;
+            int count = board.getNeighbours(cell, mergeNeighbours);
+            boolean joined = false;
+            for (int i = 0; i < count && !joined; i++)
+                joined = discovered.get(mergeNeighbours[i]);
+            if (joined) {
+                discover(board.getTile(cell));
+                mergePending(cell);
+            } else {
+                pending.set(cell);
+            }
+        }
     }
 
     /**
-     * Method to compute the probabilities of the tiles in the boundary tiles
-     * @param boundaryTiles boundary tiles
+     * Discover the pending tiles joined to a discovered tile, with a flood fill
+     * @param cell index of the discovered tile
      */
-    private void computeProbabilities(TreeMap<Double, List<Tile>> boundaryTiles) {
-        TreeMap<Double, List<Tile>> newBoundaryTiles = new TreeMap<>();
-        newBoundaryTiles.putAll(boundaryTiles);
-        newBoundaryTiles.forEach(new BiConsumer<Double, List<Tile>>() {
-            @Override
-            public void accept(Double probability, List<Tile> tiles) {
-                List<Tile> newTiles = new ArrayList<>(tiles);
-                newTiles.forEach(tile -> {
-                    List<Tile> discoveredNeighbours = board.getDiscoveredNeighbours(tile, discoveredTiles);
-                    if (discoveredNeighbours.size() == 1) {
-                        Tile discoveredNeighbour = discoveredNeighbours.get(0);
-                        if (discoveredNeighbour.isWindy() || discoveredNeighbour.isBadSmelling()) {
-                            if (discoveredNeighbour.isOnlyWindy()) {
-                                if (!boundaryTiles.containsKey(0.3))
-                                    boundaryTiles.put(0.3, new ArrayList<>());
-                                if (tileNotExistsWithSameProbability(tile, 0.3) && tileNotExistsWithProbabilityZero(tile)) {
-                                    boundaryTiles.get(0.3).add(tile);
-                                    tile.setProbability(0.3);
-                                }
-                                removeTileAlreadyExistingWithLowerProbabilityButNotZero(tile, 0.3);
-                            } else {
-                                if (!boundaryTiles.containsKey(0.2))
-                                    boundaryTiles.put(0.2, new ArrayList<>());
-                                if (tileNotExistsWithSameProbability(tile, 0.2) && tileNotExistsWithProbabilityZero(tile)) {
-                                    boundaryTiles.get(0.2).add(tile);
-                                    tile.setProbability(0.2);
-                                }
-                            }
-                        } else {
-                            if (!boundaryTiles.containsKey(0.0))
-                                boundaryTiles.put(0.0, new ArrayList<>());
-                            if (tileAlreadyExistsWithHigherProbability(tile)) {
-                                boundaryTiles.values().forEach(tiles1 -> tiles1.remove(tile));
-                            }
-                            if (tileNotExistsWithSameProbability(tile, 0.0)) {
-                                boundaryTiles.get(0.0).add(tile);
-                                tile.setProbability(0.0);
-                            }
-                        }
-                    } else if (discoveredNeighbours.size() == 2) {
-                        Tile discoveredNeighbour1 = discoveredNeighbours.get(0);
-                        Tile discoveredNeighbour2 = discoveredNeighbours.get(1);
-                        if (discoveredNeighbour1.isWindy() && discoveredNeighbour2.isWindy()) {
-                            if (!boundaryTiles.containsKey(0.6))
-                                boundaryTiles.put(0.6, new ArrayList<>());
-                            if (tileNotExistsWithSameProbability(tile, 0.6) && tileNotExistsWithProbabilityZero(tile)) {
-                                boundaryTiles.get(0.6).add(tile);
-                                tile.setProbability(0.6);
-                            }
-                            removeTileAlreadyExistingWithLowerProbabilityButNotZero(tile, 0.6);
-                        } else if (discoveredNeighbour1.isBadSmelling() && discoveredNeighbour2.isBadSmelling()) {
-                            if (!boundaryTiles.containsKey(0.5))
-                                boundaryTiles.put(0.5, new ArrayList<>());
-                            if (tileNotExistsWithSameProbability(tile, 0.5) && tileNotExistsWithProbabilityZero(tile)) {
-                                boundaryTiles.get(0.5).add(tile);
-                                tile.setProbability(0.5);
-                            }
-                            removeTileAlreadyExistingWithLowerProbabilityButNotZero(tile, 0.5);
-                        } else if ((discoveredNeighbour1.isWindy() || discoveredNeighbour1.isBadSmelling()) ||
-                                (discoveredNeighbour2.isWindy() || discoveredNeighbour2.isBadSmelling())) {
-                            if (!boundaryTiles.containsKey(0.4))
-                                boundaryTiles.put(0.4, new ArrayList<>());
-                            if (tileNotExistsWithSameProbability(tile, 0.4) && tileNotExistsWithProbabilityZero(tile)) {
-                                boundaryTiles.get(0.4).add(tile);
-                                tile.setProbability(0.4);
-                            }
-                            removeTileAlreadyExistingWithLowerProbabilityButNotZero(tile, 0.4);
-                        } else {
-                            if (!boundaryTiles.containsKey(0.0))
-                                boundaryTiles.put(0.0, new ArrayList<>());
-                            if (tileAlreadyExistsWithHigherProbability(tile)) {
-                                boundaryTiles.values().forEach(tiles1 -> tiles1.remove(tile));
-                            }
-                            if (tileNotExistsWithSameProbability(tile, 0.0)) {
-                                boundaryTiles.get(0.0).add(tile);
-                                tile.setProbability(0.0);
-                            }
-                        }
-                    } else if (discoveredNeighbours.size() == 3) {
-                        Tile discoveredNeighbour1 = discoveredNeighbours.get(0);
-                        Tile discoveredNeighbour2 = discoveredNeighbours.get(1);
-                        Tile discoveredNeighbour3 = discoveredNeighbours.get(2);
-                        if (discoveredNeighbour1.isWindy() && discoveredNeighbour2.isWindy() && discoveredNeighbour3.isWindy()) {
-                            if (!boundaryTiles.containsKey(0.8))
-                                boundaryTiles.put(0.8, new ArrayList<>());
-                            if (tileNotExistsWithSameProbability(tile, 0.8) && tileNotExistsWithProbabilityZero(tile)) {
-                                boundaryTiles.get(0.8).add(tile);
-                                tile.setProbability(0.8);
-                            }
-                            removeTileAlreadyExistingWithLowerProbabilityButNotZero(tile, 0.8);
-                        } else if (discoveredNeighbour1.isBadSmelling() && discoveredNeighbour2.isBadSmelling() && discoveredNeighbour3.isBadSmelling()) {
-                            if (!boundaryTiles.containsKey(0.7))
-                                boundaryTiles.put(0.7, new ArrayList<>());
-                            if (tileNotExistsWithSameProbability(tile, 0.7) && tileNotExistsWithProbabilityZero(tile)) {
-                                boundaryTiles.get(0.7).add(tile);
-                                tile.setProbability(0.7);
-                            }
-                            removeTileAlreadyExistingWithLowerProbabilityButNotZero(tile, 0.7);
-                        } else if ((discoveredNeighbour1.isWindy() || discoveredNeighbour1.isBadSmelling()) &&
-                                (discoveredNeighbour2.isWindy() || discoveredNeighbour2.isBadSmelling()) ||
-                                (discoveredNeighbour1.isWindy() || discoveredNeighbour1.isBadSmelling()) &&
-                                        (discoveredNeighbour3.isWindy() || discoveredNeighbour3.isBadSmelling()) ||
-                                (discoveredNeighbour2.isWindy() || discoveredNeighbour2.isBadSmelling()) &&
-                                        (discoveredNeighbour3.isWindy() || discoveredNeighbour3.isBadSmelling())) {
-                            if (!boundaryTiles.containsKey(0.6))
-                                boundaryTiles.put(0.6, new ArrayList<>());
-                            if (tileNotExistsWithSameProbability(tile, 0.6) && tileNotExistsWithProbabilityZero(tile)) {
-                                boundaryTiles.get(0.6).add(tile);
-                                tile.setProbability(0.6);
-                            }
-                            removeTileAlreadyExistingWithLowerProbabilityButNotZero(tile, 0.6);
-                        } else if ((discoveredNeighbour1.isWindy() || discoveredNeighbour1.isBadSmelling()) ||
-                                (discoveredNeighbour2.isWindy() || discoveredNeighbour2.isBadSmelling()) ||
-                                (discoveredNeighbour3.isWindy() || discoveredNeighbour3.isBadSmelling())) {
-                            removeTileAlreadyExistingWithLowerProbabilityButNotZero(tile, 0.5);
-                            if (!boundaryTiles.containsKey(0.5))
-                                boundaryTiles.put(0.5, new ArrayList<>());
-                            if (tileNotExistsWithSameProbability(tile, 0.5) && tileNotExistsWithProbabilityZero(tile)) {
-                                boundaryTiles.get(0.5).add(tile);
-                                tile.setProbability(0.5);
-                            }
-                        } else {
-                            if (!boundaryTiles.containsKey(0.0))
-                                boundaryTiles.put(0.0, new ArrayList<>());
-                            if (tileAlreadyExistsWithHigherProbability(tile)) {
-                                boundaryTiles.values().forEach(tiles1 -> tiles1.remove(tile));
-                            }
-                            if (tileNotExistsWithSameProbability(tile, 0.0)) {
-                                boundaryTiles.get(0.0).add(tile);
-                                tile.setProbability(0.0);
-                            }
-                        }
-                    } else {
-                        Tile discoveredNeighbour1 = discoveredNeighbours.get(0);
-                        Tile discoveredNeighbour2 = discoveredNeighbours.get(1);
-                        Tile discoveredNeighbour3 = discoveredNeighbours.get(2);
-                        Tile discoveredNeighbour4 = discoveredNeighbours.get(3);
-                        if (discoveredNeighbour1.isWindy() && discoveredNeighbour2.isWindy() && discoveredNeighbour3.isWindy() && discoveredNeighbour4.isWindy()) {
-                            if (!boundaryTiles.containsKey(1.0))
-                                boundaryTiles.put(1.0, new ArrayList<>());
-                            if (tileNotExistsWithSameProbability(tile, 1.0) && tileNotExistsWithProbabilityZero(tile)) {
-                                boundaryTiles.get(1.0).add(tile);
-                                tile.setProbability(1.0);
-                            }
-                            removeTileAlreadyExistingWithLowerProbabilityButNotZero(tile, 1.0);
-                        } else if (discoveredNeighbour1.isBadSmelling() && discoveredNeighbour2.isBadSmelling() && discoveredNeighbour3.isBadSmelling() && discoveredNeighbour4.isBadSmelling()) {
-                            if (!boundaryTiles.containsKey(0.9))
-                                boundaryTiles.put(0.9, new ArrayList<>());
-                            if (tileNotExistsWithSameProbability(tile, 0.9) && tileNotExistsWithProbabilityZero(tile)) {
-                                boundaryTiles.get(0.9).add(tile);
-                                tile.setProbability(0.9);
-                            }
-                            removeTileAlreadyExistingWithLowerProbabilityButNotZero(tile, 0.9);
-                        } else if ((discoveredNeighbour1.isWindy() || discoveredNeighbour1.isBadSmelling()) &&
-                                (discoveredNeighbour2.isWindy() || discoveredNeighbour2.isBadSmelling()) &&
-                                (discoveredNeighbour3.isWindy() || discoveredNeighbour3.isBadSmelling()) ||
-                                (discoveredNeighbour1.isWindy() || discoveredNeighbour1.isBadSmelling()) &&
-                                        (discoveredNeighbour2.isWindy() || discoveredNeighbour2.isBadSmelling()) &&
-                                        (discoveredNeighbour4.isWindy() || discoveredNeighbour4.isBadSmelling()) ||
-                                (discoveredNeighbour1.isWindy() || discoveredNeighbour1.isBadSmelling()) &&
-                                        (discoveredNeighbour3.isWindy() || discoveredNeighbour3.isBadSmelling()) &&
-                                        (discoveredNeighbour4.isWindy() || discoveredNeighbour4.isBadSmelling()) ||
-                                (discoveredNeighbour2.isWindy() || discoveredNeighbour2.isBadSmelling()) &&
-                                        (discoveredNeighbour3.isWindy() || discoveredNeighbour3.isBadSmelling()) &&
-                                        (discoveredNeighbour4.isWindy() || discoveredNeighbour4.isBadSmelling())) {
-                            if (!boundaryTiles.containsKey(0.8))
-                                boundaryTiles.put(0.8, new ArrayList<>());
-                            if (tileNotExistsWithSameProbability(tile, 0.8) && tileNotExistsWithProbabilityZero(tile)) {
-                                boundaryTiles.get(0.8).add(tile);
-                                tile.setProbability(0.8);
-                            }
-                            removeTileAlreadyExistingWithLowerProbabilityButNotZero(tile, 0.8);
-                        } else if ((discoveredNeighbour1.isWindy() || discoveredNeighbour1.isBadSmelling()) &&
-                                (discoveredNeighbour2.isWindy() || discoveredNeighbour2.isBadSmelling()) ||
-                                (discoveredNeighbour1.isWindy() || discoveredNeighbour1.isBadSmelling()) &&
-                                        (discoveredNeighbour3.isWindy() || discoveredNeighbour3.isBadSmelling()) ||
-                                (discoveredNeighbour1.isWindy() || discoveredNeighbour1.isBadSmelling()) &&
-                                        (discoveredNeighbour4.isWindy() || discoveredNeighbour4.isBadSmelling()) ||
-                                (discoveredNeighbour2.isWindy() || discoveredNeighbour2.isBadSmelling()) &&
-                                        (discoveredNeighbour3.isWindy() || discoveredNeighbour3.isBadSmelling()) ||
-                                (discoveredNeighbour2.isWindy() || discoveredNeighbour2.isBadSmelling()) &&
-                                        (discoveredNeighbour4.isWindy() || discoveredNeighbour4.isBadSmelling()) ||
-                                (discoveredNeighbour3.isWindy() || discoveredNeighbour3.isBadSmelling()) &&
-                                        (discoveredNeighbour4.isWindy() || discoveredNeighbour4.isBadSmelling())) {
-                            if (!boundaryTiles.containsKey(0.6))
-                                boundaryTiles.put(0.6, new ArrayList<>());
-                            if (tileNotExistsWithSameProbability(tile, 0.6) && tileNotExistsWithProbabilityZero(tile)) {
-                                boundaryTiles.get(0.6).add(tile);
-                                tile.setProbability(0.6);
-                            }
-                            removeTileAlreadyExistingWithLowerProbabilityButNotZero(tile, 0.6);
-                        } else if ((discoveredNeighbour1.isWindy() || discoveredNeighbour1.isBadSmelling()) ||
-                                (discoveredNeighbour2.isWindy() || discoveredNeighbour2.isBadSmelling()) ||
-                                (discoveredNeighbour3.isWindy() || discoveredNeighbour3.isBadSmelling()) ||
-                                (discoveredNeighbour4.isWindy() || discoveredNeighbour4.isBadSmelling())) {
-                            if (!boundaryTiles.containsKey(0.4))
-                                boundaryTiles.put(0.4, new ArrayList<>());
-                            if (tileNotExistsWithSameProbability(tile, 0.4) && tileNotExistsWithProbabilityZero(tile)) {
-                                boundaryTiles.get(0.4).add(tile);
-                                tile.setProbability(0.4);
-                            }
-                            removeTileAlreadyExistingWithLowerProbabilityButNotZero(tile, 0.4);
-                        } else {
-                            if (!boundaryTiles.containsKey(0.0))
-                                boundaryTiles.put(0.0, new ArrayList<>());
-                            if (tileAlreadyExistsWithHigherProbability(tile)) {
-                                boundaryTiles.values().forEach(tiles1 -> tiles1.remove(tile));
-                            }
-                            if (tileNotExistsWithSameProbability(tile, 0.0)) {
-                                boundaryTiles.get(0.0).add(tile);
-                                tile.setProbability(0.0);
-                            }
-                        }
-                    }
-                });
+    private void mergePending(int cell) {
+        int size = 0;
+        mergeStack[size++] = cell;
+        while (size > 0) {
+            int count = board.getNeighbours(mergeStack[--size], mergeNeighbours);
+            for (int i = 0; i < count; i++) {
+                int neighbour = mergeNeighbours[i];
+                if (!pending.get(neighbour))
+                    continue;
+                pending.clear(neighbour);
+                if (!discovered.get(neighbour))
+                    discover(board.getTile(neighbour));
+                if (size == mergeStack.length)
+                    mergeStack = Arrays.copyOf(mergeStack, size * 2);
+                mergeStack[size++] = neighbour;
             }
-        });
+        }
     }
 
     /**
-     * This method removes the tile from the boundaryTiles list if there is already a tile with the same coordinates and a lower probability.
-     * @param tile The tile to be removed.
-     * @param probability The probability of the tile to be removed.
+     * Method to compute the probabilities of the boundary tiles with the exact inference, if it is chosen
      */
-    private void removeTileAlreadyExistingWithLowerProbabilityButNotZero(Tile tile, double probability) {
-        boundaryTiles.forEach((key, value) -> {
-            if (key < probability && key != 0.0)
-                value.remove(tile);
-        });
-        boundaryTiles.entrySet().removeIf(entry -> entry.getValue().isEmpty());
+    private void infer() {
+        if (inference != null)
+            inference.infer();
     }
 
     /**
-     * This method checks if the tile not exists in the boundaryTiles list with a probability of zero.
-     * @param tile The tile to be checked.
-     * @return True if the tile not exists in the boundaryTiles list, false otherwise.
+     * Method to compute the probability of a boundary tile with the heuristic, used by the exact inference
+     * for the tiles it can not evaluate
+     * @param cell index of the boundary tile
      */
-    private boolean tileNotExistsWithProbabilityZero(Tile tile) {
-        if (boundaryTiles.containsKey(0.0)) {
-            return !boundaryTiles.get(0.0).contains(tile);
-        } else {
-            return true;
-        }
+    void estimateProbability(int cell) {
+        updateProbability(cell);
     }
 
     /**
-     * This method checks if the tile already exists in the boundaryTiles list with higher probability.
-     * @param tile The tile to be checked.
-     * @return True if the tile already exists in the boundaryTiles list, false otherwise.
+     * Method to set the probability of a boundary tile and move it to its level.
+     * Only a tile which can not be a hazard is on the lowest level.
+     * @param cell index of the boundary tile
+     * @param probability of a crevasse or a monster on the tile
+     * @param monsterProbability of a monster on the tile
      */
-    private boolean tileAlreadyExistsWithHigherProbability(Tile tile) {
-        return boundaryTiles.entrySet().stream().anyMatch(entry -> entry.getKey() > 0.0 && entry.getValue().contains(tile));
+    void setProbability(int cell, double probability, double monsterProbability) {
+        int level = probability == 0 ? 0 : Math.max(1, FrontierIndex.toLevel(probability));
+        safe.set(cell, level == 0);
+        int oldLevel = boundaryTiles.getLevel(cell);
+        boundaryTiles.put(cell, level, probability, monsterProbability);
+        if (listener != null && oldLevel != level)
+            listener.cellChanged(cell);
     }
 
     /**
-     * This method checks if the tile not exists in the boundaryTiles list with the same probability.
-     * @param tile The tile to be checked.
-     * @param probability The probability of the tile to be checked.
-     * @return True if the tile not exists in the boundaryTiles list, false otherwise.
+     * Get the probability of hazard of a tile, as known by this sensor
+     * @param cell index of the tile
+     * @return probability of a crevasse or a monster on a boundary tile, 0 on any other tile
      */
-    private boolean tileNotExistsWithSameProbability(Tile tile, double probability) {
-        return boundaryTiles.entrySet().stream().noneMatch(entry -> entry.getKey() == probability && entry.getValue().contains(tile));
+    public double getProbability(int cell) {
+        return boundaryTiles.getProbability(cell);
+    }
+
+    /**
+     * Get the probability of monster of a tile, as known by this sensor
+     * @param cell index of the tile
+     * @return probability of a monster on a boundary tile, 0 on any other tile
+     */
+    public double getMonsterProbability(int cell) {
+        return boundaryTiles.getMonsterProbability(cell);
+    }
+
+    /**
+     * Method to compute the probability of a boundary tile with the heuristic and move it to its level
+     * @param cell index of the boundary tile
+     */
+    private void updateProbability(int cell) {
+        int level = computeProbabilityLevel(cell);
+        double probability = FrontierIndex.toProbability(level);
+        setProbability(cell, probability, (MONSTER_LEVELS & 1 << level) != 0 ? probability : 0);
+    }
+
+    /**
+     * Method to compute the probability level of a boundary tile from its discovered neighbours.
+     * A tile next to a discovered tile which is neither windy nor bad smelling is safe,
+     * otherwise the probability grows with the number of windy or bad smelling discovered neighbours.
+     * @param cell index of the boundary tile
+     * @return probability level of the tile
+     */
+    private int computeProbabilityLevel(int cell) {
+        int count = board.getNeighbours(cell, neighbours);
+        int discoveredCount = 0;
+        int windyCount = 0;
+        int badSmellingCount = 0;
+        for (int i = 0; i < count; i++) {
+            int neighbour = neighbours[i];
+            if (!discovered.get(neighbour))
+                continue;
+            boolean windyNeighbour = windy.get(neighbour);
+            boolean badSmellingNeighbour = badSmelling.get(neighbour);
+            if (!windyNeighbour && !badSmellingNeighbour)
+                return 0;
+            discoveredCount++;
+            if (windyNeighbour)
+                windyCount++;
+            if (badSmellingNeighbour)
+                badSmellingCount++;
+        }
+
+        switch (discoveredCount) {
+            case 1:
+                return badSmellingCount == 0 ? 3 : 2;
+            case 2:
+                if (windyCount == 2)
+                    return 6;
+                return badSmellingCount == 2 ? 5 : 4;
+            case 3:
+                if (windyCount == 3)
+                    return 8;
+                return badSmellingCount == 3 ? 7 : 6;
+            case 4:
+                if (windyCount == 4)
+                    return 10;
+                return badSmellingCount == 4 ? 9 : 8;
+            default:
+                return 0;
+        }
     }
 }
@@ -0,0 +1,18 @@
+package controller;
+
+/**
+ * Interface used to follow the changes of the knowledge of a sensor
+ */
+public interface SensorListener {
+
+    /**
+     * Method called when a cell has been discovered, or has entered the boundary tiles, or has changed level
+     * @param cell index of the cell
+     */
+    void cellChanged(int cell);
+
+    /**
+     * Method called when all the knowledge of the sensor has been cleared, at the start of a level
+     */
+    void knowledgeReset();
+}
@@ -0,0 +1,110 @@
+package controller;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Class that shares the tiles discovered by the characters exploring a level together, without any lock.
+ * The first character which discovers a cell claims it in a grid of bits and appends it to a log,
+ * and every sensor reads the log from where it stopped the last time, so it learns the discoveries
+ * of the other characters in the order they were made. Only the safe tiles are shared.
+ * The grid and the log are split in pages of PAGE cells, installed with an atomic change the first time
+ * they are written, so the memory used grows with the shared cells and not with the size of the board.
+ */
+public class SharedDiscovery {
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE = 1 << PAGE_BITS;
+
+    /**
+     * Pages of PAGE / 64 words, one bit for every claimed cell
+     */
+    private final AtomicReferenceArray<AtomicLongArray> claimed;
+    /**
+     * Pages of PAGE positions of the log, discovered cells plus one, 0 while a slot which has been taken
+     * is not written yet
+     */
+    private final AtomicReferenceArray<AtomicIntegerArray> log;
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * SharedDiscovery constructor
+     * @param capacity number of cells of the board
+     */
+    public SharedDiscovery(int capacity) {
+        int pages = (int) (((long) capacity + PAGE - 1) >>> PAGE_BITS);
+        claimed = new AtomicReferenceArray<>(pages);
+        log = new AtomicReferenceArray<>(pages);
+    }
+
+    /**
+     * Share a discovered cell, nothing is done if it has already been shared
+     * @param cell index of the discovered cell
+     * @return true if the cell has been shared by this call
+     */
+    public boolean publish(int cell) {
+        AtomicLongArray words = claimedPage(cell >>> PAGE_BITS);
+        int i = (cell & (PAGE - 1)) >>> 6;
+        long bit = 1L << cell;
+        long word = words.get(i);
+        while ((word & bit) == 0) {
+            long witness = words.compareAndExchange(i, word, word | bit);
+            if (witness == word) {
+                int position = size.getAndIncrement();
+                logPage(position >>> PAGE_BITS).set(position & (PAGE - 1), cell + 1);
+                return true;
+            }
+            word = witness;
+        }
+        return false;
+    }
+
+    /**
+     * Get a shared cell
+     * @param position of the cell in the log
+     * @return the cell, or -1 if there is no cell at this position yet
+     */
+    public int get(int position) {
+        if (position >= size.get())
+            return -1;
+        AtomicIntegerArray page = log.get(position >>> PAGE_BITS);
+        return page == null ? -1 : page.get(position & (PAGE - 1)) - 1;
+    }
+
+    /**
+     * Get the number of shared cells
+     * @return number of cells shared by all the characters
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Get a page of the grid, installed if it does not exist yet
+     */
+    private AtomicLongArray claimedPage(int p) {
+        AtomicLongArray page = claimed.get(p);
+        if (page == null) {
+            AtomicLongArray created = new AtomicLongArray(PAGE >>> 6);
+            page = claimed.compareAndExchange(p, null, created);
+            if (page == null)
+                page = created;
+        }
+        return page;
+    }
+
+    /**
+     * Get a page of the log, installed if it does not exist yet
+     */
+    private AtomicIntegerArray logPage(int p) {
+        AtomicIntegerArray page = log.get(p);
+        if (page == null) {
+            AtomicIntegerArray created = new AtomicIntegerArray(PAGE);
+            page = log.compareAndExchange(p, null, created);
+            if (page == null)
+                page = created;
+        }
+        return page;
+    }
+}
@@ -0,0 +1,114 @@
+package controller;
+
+import lombok.Getter;
+import lombok.Setter;
+import model.Action;
+import model.Board;
+import model.Character;
+import model.Tile;
+import java.util.List;
+
+/**
+ * Class that runs the game loop of a character on a board, without any view
+ */
+public class Simulation {
+
+    /**
+     * Outcome of a step of the simulation
+     */
+    public enum Outcome {
+        MOVED,
+        NEXT_LEVEL,
+        DEAD,
+        CANCELLED,
+        FINISHED
+    }
+
+    @Getter
+    private final Board board;
+    @Getter
+    private final Character character;
+    @Getter @Setter
+    private EpisodeRecorder recorder;
+    @Getter @Setter
+    private EpisodeReplay replay;
+
+    /**
+     * Simulation constructor, generates the items of the board and places the character
+     * @param board on which the character plays
+     */
+    public Simulation(Board board) {
+        this.board = board;
+        board.generateItems();
+        this.character = new Character(board);
+    }
+
+    /**
+     * Simulation constructor for a board whose items are already placed, like a level loaded from a file
+     * @param board on which the character plays
+     * @param startTile on which the character starts
+     */
+    public Simulation(Board board, Tile startTile) {
+        this.board = board;
+        this.character = new Character(board, startTile);
+    }
+
+    /**
+     * Method that plays one step of the game.
+     * If the thread is interrupted while the decision is planning, no action is done and the step is cancelled.
+     * When a game is replayed, the actions come from the replay instead of the decision,
+     * and the step is finished once the replay has no step left.
+     * @return the outcome of the step
+     */
+    public Outcome step() {
+        Decision decision = character.getDecision();
+        int evaluation = decision.getEvaluation();
+        Tile tile = character.getSensor().getTile();
+        if (tile.isPortal()) {
+            board.updateBoardSize(character, board.getHeight() + 1, board.getWidth() + 1);
+            character.nextLevel();
+            if (replay != null)
+                replay.expectLevel(board, decision.getEvaluation());
+            if (recorder != null)
+                recorder.recordLevel(board, decision.getEvaluation());
+            return Outcome.NEXT_LEVEL;
+        } else if (tile.isCrevasse() || tile.isMonster()) {
+            character.die();
+            if (replay != null)
+                replay.expectDeath(decision.getEvaluation());
+            if (recorder != null)
+                recorder.recordDeath(decision.getEvaluation());
+            return Outcome.DEAD;
+        }
+
+        List<Action> actions;
+        if (replay == null) {
+            actions = decision.makeRule();
+            if (Thread.interrupted())
+                return Outcome.CANCELLED;
+        } else if (replay.hasNext()) {
+            actions = replay.nextActions();
+        } else {
+            return Outcome.FINISHED;
+        }
+        character.getEffector().doActions(character, actions);
+        character.getSensor().update();
+        if (replay != null)
+            replay.checkEvaluation(decision.getEvaluation());
+        if (recorder != null)
+            recorder.recordStep(actions, decision.getEvaluation() - evaluation);
+        return Outcome.MOVED;
+    }
+
+    /**
+     * Method that restarts the game on the first level after a death
+     */
+    public void restart() {
+        board.updateBoardSize(character, 3, 3);
+        character.getSensor().nextLevel();
+        if (replay != null)
+            replay.expectRestart(board, character.getDecision().getEvaluation());
+        if (recorder != null)
+            recorder.recordRestart(board, character.getDecision().getEvaluation());
+    }
+}
@@ -0,0 +1,46 @@
+package controller;
+
+import model.Tile;
+
+/**
+ * Interface of the strategies used by the decision to choose the boundary tile the character goes to
+ */
+public interface TargetSelector {
+
+    /**
+     * System property used to choose the target selector of the decision
+     */
+    String PROPERTY = "magicmaze.target";
+
+    /**
+     * Choose the boundary tile the character goes to
+     * @return the chosen tile, or null if there is no boundary tile or if the thread is interrupted
+     */
+    Tile selectTarget();
+
+    /**
+     * Create a target selector from its name
+     * @param name of the selector, "lowest" or "montecarlo"
+     * @param sensor whose boundary tiles are chosen from
+     * @return the selector
+     */
+    static TargetSelector create(String name, Sensor sensor) {
+        switch (name) {
+            case "lowest":
+                return new LowestLevelSelector(sensor);
+            case "montecarlo":
+                return new MonteCarloSelector(sensor);
+            default:
+                throw new IllegalArgumentException("Unknown target selector: " + name);
+        }
+    }
+
+    /**
+     * Create the target selector chosen by the magicmaze.target system property, the lowest level by default
+     * @param sensor whose boundary tiles are chosen from
+     * @return the selector
+     */
+    static TargetSelector fromConfiguration(Sensor sensor) {
+        return create(System.getProperty(PROPERTY, "lowest"), sensor);
+    }
+}
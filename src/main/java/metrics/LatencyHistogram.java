@@ -0,0 +1,102 @@
+package metrics;
+
+import lombok.Getter;
+
+/**
+ * Class that counts durations in nanoseconds in log-linear buckets: every power of two is split into 8 buckets,
+ * so a percentile is known within 12.5%. Recording is a few arithmetic operations and never allocates,
+ * and two histograms are merged by adding their counts.
+ * A histogram is written by one thread only, it can be read from another one while it is written.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_VALUES = 2 * SUB_BUCKETS;
+    private static final int BUCKETS = LINEAR_VALUES + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    @Getter
+    private long count;
+    @Getter
+    private long sum;
+    @Getter
+    private long min = Long.MAX_VALUE;
+    @Getter
+    private long max;
+
+    /**
+     * Record a duration
+     * @param nanos duration in nanoseconds, negative durations are recorded as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[bucket(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Add the durations of another histogram to this one
+     * @param other histogram to add
+     */
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++)
+            counts[i] += other.counts[i];
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Get the mean of the durations
+     * @return mean in nanoseconds, 0 if the histogram is empty
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Get a percentile of the durations
+     * @param percentile between 0 and 100
+     * @return the highest duration of the bucket of the percentile, in nanoseconds, 0 if the histogram is empty
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(max, highestValue(i));
+        }
+        return max;
+    }
+
+    /**
+     * Get the bucket of a duration: the values under 16 have a bucket of their own,
+     * the other values are bucketed by their highest bit and the 3 bits under it
+     */
+    private static int bucket(long value) {
+        if (value < LINEAR_VALUES)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_VALUES + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Get the highest duration of a bucket
+     */
+    private static long highestValue(int bucket) {
+        if (bucket < LINEAR_VALUES)
+            return bucket;
+        int exponent = (bucket - LINEAR_VALUES) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        int subBucket = (bucket - LINEAR_VALUES) % SUB_BUCKETS;
+        long lowest = (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
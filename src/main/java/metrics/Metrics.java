@@ -0,0 +1,184 @@
+package metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Class that times the phases of the game when the magicmaze.metrics system property is true.
+ * Every thread records into histograms of its own, keyed by phase and board size, so recording takes no lock.
+ * The histograms of all the threads are merged when the statistics are read, over JMX or into a CSV file.
+ * When the metrics are disabled, start and record do nothing.
+ */
+public final class Metrics {
+
+    /**
+     * System property used to enable the metrics
+     */
+    public static final String PROPERTY = "magicmaze.metrics";
+    /**
+     * System property giving the CSV file written at the end of a run
+     */
+    public static final String CSV_PROPERTY = "magicmaze.metrics.csv";
+    public static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+    private static final Queue<Recorder> RECORDERS = new ConcurrentLinkedQueue<>();
+    private static final ThreadLocal<Recorder> RECORDER = ThreadLocal.withInitial(() -> {
+        Recorder recorder = new Recorder();
+        RECORDERS.add(recorder);
+        return recorder;
+    });
+
+    static {
+        if (ENABLED)
+            register();
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Start timing a phase
+     * @return the start of the phase, to give to record
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Record the duration of a phase, from its start until now
+     * @param phase which has been timed
+     * @param width of the board
+     * @param height of the board
+     * @param start of the phase, given by start
+     */
+    public static void record(Phase phase, int width, int height, long start) {
+        if (ENABLED)
+            RECORDER.get().record(phase, width, height, System.nanoTime() - start);
+    }
+
+    /**
+     * Merge the histograms of all the threads
+     * @return the statistics of every phase on every board size, sorted by phase and board size
+     */
+    public static List<PhaseStatistics> getPhaseStatistics() {
+        Map<Long, LatencyHistogram> merged = new TreeMap<>();
+        for (Recorder recorder : RECORDERS) {
+            recorder.histograms.forEach((key, histogram) ->
+                    merged.computeIfAbsent(key, k -> new LatencyHistogram()).merge(histogram));
+        }
+        List<PhaseStatistics> statistics = new ArrayList<>(merged.size());
+        merged.forEach((key, histogram) -> statistics.add(new PhaseStatistics(
+                Phase.values()[(int) (key >>> 40)], (int) (key >>> 20) & 0xFFFFF, (int) (key & 0xFFFFF), histogram)));
+        return statistics;
+    }
+
+    /**
+     * Forget all the durations recorded so far, a duration recorded at the same time may be lost
+     */
+    public static void reset() {
+        for (Recorder recorder : RECORDERS)
+            recorder.histograms = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Write the statistics to a CSV file, one line per phase and board size, the durations in microseconds
+     * @param file path of the file
+     * @throws IOException if the file can not be written
+     */
+    public static void exportCsv(Path file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file))) {
+            writer.println("phase,width,height,count,mean_us,p50_us,p90_us,p99_us,max_us");
+            for (PhaseStatistics statistics : getPhaseStatistics()) {
+                writer.printf(Locale.ROOT, "%s,%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f%n", statistics.getPhase(),
+                        statistics.getWidth(), statistics.getHeight(), statistics.getCount(), statistics.getMean(),
+                        statistics.getP50(), statistics.getP90(), statistics.getP99(), statistics.getMax());
+            }
+        }
+    }
+
+    /**
+     * Write the statistics to the CSV file given by the magicmaze.metrics.csv system property,
+     * if the metrics are enabled and the property is set
+     * @throws IOException if the file can not be written
+     */
+    public static void exportConfiguredCsv() throws IOException {
+        String file = System.getProperty(CSV_PROPERTY);
+        if (ENABLED && file != null)
+            exportCsv(Paths.get(file));
+    }
+
+    /**
+     * Register the management bean of the metrics in the platform MBean server
+     */
+    private static void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName("magicmaze:type=Metrics"));
+        } catch (JMException e) {
+            throw new IllegalStateException("Unable to register the metrics", e);
+        }
+    }
+
+    /**
+     * Histograms of a thread. Only the thread writes them, the last histogram of every phase is kept
+     * so the map is only looked up when the board size changes.
+     */
+    private static final class Recorder {
+        private volatile Map<Long, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+        private Map<Long, LatencyHistogram> lastHistograms;
+        private final long[] lastKeys = new long[Phase.values().length];
+        private final LatencyHistogram[] last = new LatencyHistogram[Phase.values().length];
+
+        void record(Phase phase, int width, int height, long nanos) {
+            Map<Long, LatencyHistogram> current = histograms;
+            if (current != lastHistograms) {
+                lastHistograms = current;
+                Arrays.fill(last, null);
+            }
+            long key = (long) phase.ordinal() << 40 | (long) width << 20 | height;
+            int i = phase.ordinal();
+            LatencyHistogram histogram = last[i];
+            if (histogram == null || lastKeys[i] != key) {
+                histogram = current.computeIfAbsent(key, k -> new LatencyHistogram());
+                last[i] = histogram;
+                lastKeys[i] = key;
+            }
+            histogram.record(nanos);
+        }
+    }
+
+    /**
+     * Management bean of the metrics
+     */
+    private static final class Bean implements MetricsMXBean {
+
+        @Override
+        public List<PhaseStatistics> getPhaseStatistics() {
+            return Metrics.getPhaseStatistics();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+
+        @Override
+        public void exportCsv(String file) throws IOException {
+            Metrics.exportCsv(Paths.get(file));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package metrics;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Management interface of the metrics, registered as magicmaze:type=Metrics when the metrics are enabled
+ */
+public interface MetricsMXBean {
+
+    /**
+     * Get the statistics of every phase on every board size
+     * @return the statistics, sorted by phase and board size
+     */
+    List<PhaseStatistics> getPhaseStatistics();
+
+    /**
+     * Forget all the durations recorded so far
+     */
+    void reset();
+
+    /**
+     * Write the statistics to a CSV file
+     * @param file path of the file
+     * @throws IOException if the file can not be written
+     */
+    void exportCsv(String file) throws IOException;
+}
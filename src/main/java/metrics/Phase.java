@@ -0,0 +1,23 @@
+package metrics;
+
+/**
+ * Phases of a step of the game which are timed by the metrics
+ */
+public enum Phase {
+    /** Choice of the boundary tile to reach by the decision */
+    TARGET_SELECTION,
+    /** Search of the way to the chosen tile by the path planner */
+    SEARCH,
+    /** Moves and throws of the effector */
+    ACTIONS,
+    /** Discovery of the tile of the character and computation of the probabilities by the sensor */
+    SENSOR_UPDATE,
+    /** Change of level of the board, generation included */
+    LEVEL_CHANGE,
+    /** Generation of the items of a level */
+    GENERATION,
+    /** Publication of the changed tiles to the view at the end of a batch, the grid view redraws them then */
+    RENDERING,
+    /** Painting of the dirty tiles of the canvas view on a pulse */
+    PAINT
+}
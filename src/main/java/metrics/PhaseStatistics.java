@@ -0,0 +1,46 @@
+package metrics;
+
+import lombok.Getter;
+
+/**
+ * Class that summarizes the durations of a phase on a board size, in microseconds
+ */
+public class PhaseStatistics {
+    @Getter
+    private final String phase;
+    @Getter
+    private final int width;
+    @Getter
+    private final int height;
+    @Getter
+    private final long count;
+    @Getter
+    private final double mean;
+    @Getter
+    private final double p50;
+    @Getter
+    private final double p90;
+    @Getter
+    private final double p99;
+    @Getter
+    private final double max;
+
+    /**
+     * PhaseStatistics constructor
+     * @param phase which has been timed
+     * @param width of the board
+     * @param height of the board
+     * @param histogram of the durations of the phase on this board size
+     */
+    public PhaseStatistics(Phase phase, int width, int height, LatencyHistogram histogram) {
+        this.phase = phase.name();
+        this.width = width;
+        this.height = height;
+        this.count = histogram.getCount();
+        this.mean = histogram.getMean() / 1e3;
+        this.p50 = histogram.getPercentile(50) / 1e3;
+        this.p90 = histogram.getPercentile(90) / 1e3;
+        this.p99 = histogram.getPercentile(99) / 1e3;
+        this.max = histogram.getMax() / 1e3;
+    }
+}
@@ -0,0 +1,297 @@
+package model;
+
+import lombok.Getter;
+import java.util.Arrays;
+
+/**
+ * Class that stores one bit for every cell of a board, in words of 64 cells indexed like the board, x * height + y.
+ * The words are held in pages of PAGE_WORDS words allocated the first time one of their bits is set,
+ * so the memory used grows with the cells which have been set and not with the size of the board,
+ * and the set operations and the iterations skip the pages which have never been allocated.
+ * Set operations and the computation of the neighbours of a set of cells work on whole words,
+ * the neighbours are found by shifting the words by one cell for y and by height cells for x.
+ */
+public class BitGrid {
+    static final int PAGE_BITS = 6;
+    static final int PAGE_WORDS = 1 << PAGE_BITS;
+
+    @Getter
+    private int height;
+    @Getter
+    private int width;
+    /**
+     * Number of words of the grid, allocated or not
+     */
+    @Getter
+    private int wordCount;
+    private long[][] pages;
+    /**
+     * One bit for every allocated page
+     */
+    private long[] allocated;
+
+    /**
+     * BitGrid constructor, every bit is cleared
+     * @param height of the board
+     * @param width of the board
+     */
+    public BitGrid(int height, int width) {
+        resize(height, width);
+    }
+
+    /**
+     * Clear every bit and make the grid fit a board of another size, the pages are released
+     * @param height of the board
+     * @param width of the board
+     */
+    public void resize(int height, int width) {
+        this.height = height;
+        this.width = width;
+        wordCount = (int) (((long) height * width + 63) >>> 6);
+        pages = new long[(wordCount + PAGE_WORDS - 1) >>> PAGE_BITS][];
+        allocated = new long[(pages.length + 63) >>> 6];
+    }
+
+    /**
+     * Get the number of cells of the grid
+     * @return number of cells
+     */
+    public int size() {
+        return height * width;
+    }
+
+    public boolean get(int cell) {
+        long[] page = pages[cell >>> (6 + PAGE_BITS)];
+        return page != null && (page[(cell >>> 6) & (PAGE_WORDS - 1)] & 1L << cell) != 0;
+    }
+
+    public void set(int cell) {
+        page(cell >>> (6 + PAGE_BITS))[(cell >>> 6) & (PAGE_WORDS - 1)] |= 1L << cell;
+    }
+
+    public void clear(int cell) {
+        long[] page = pages[cell >>> (6 + PAGE_BITS)];
+        if (page != null)
+            page[(cell >>> 6) & (PAGE_WORDS - 1)] &= ~(1L << cell);
+    }
+
+    /**
+     * Set or clear the bit of a cell
+     * @param cell index of the cell
+     * @param value true to set the bit, false to clear it
+     */
+    public void set(int cell, boolean value) {
+        if (value)
+            set(cell);
+        else
+            clear(cell);
+    }
+
+    /**
+     * Get a word of 64 cells
+     * @param i index of the word, the cells from i * 64
+     * @return the bits of the word, 0 if its page has never been allocated
+     */
+    public long getWord(int i) {
+        long[] page = pages[i >>> PAGE_BITS];
+        return page == null ? 0 : page[i & (PAGE_WORDS - 1)];
+    }
+
+    /**
+     * Replace a word of 64 cells, its page is only allocated if a bit is set
+     * @param i index of the word, the cells from i * 64
+     * @param word bits of the word
+     */
+    public void setWord(int i, long word) {
+        if (word != 0 || pages[i >>> PAGE_BITS] != null)
+            page(i >>> PAGE_BITS)[i & (PAGE_WORDS - 1)] = word;
+    }
+
+    /**
+     * Clear every bit, the pages are kept to be used again
+     */
+    public void clear() {
+        for (int p = nextPage(0); p >= 0; p = nextPage(p + 1))
+            Arrays.fill(pages[p], 0);
+    }
+
+    /**
+     * Count the cells whose bit is set
+     * @return number of cells
+     */
+    public int cardinality() {
+        int count = 0;
+        for (int p = nextPage(0); p >= 0; p = nextPage(p + 1)) {
+            for (long word : pages[p])
+                count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Get the first cell whose bit is set, from a cell included
+     * @param from index of the first cell to look at
+     * @return index of the cell, or -1 if there is none
+     */
+    public int nextSetBit(int from) {
+        int i = from >>> 6;
+        if (i >= wordCount)
+            return -1;
+        long word = getWord(i) & -1L << from;
+        while (word == 0) {
+            if (++i == wordCount)
+                return -1;
+            // Jump over the pages which have never been allocated
+            if ((i & (PAGE_WORDS - 1)) == 0) {
+                int page = nextPage(i >>> PAGE_BITS);
+                if (page < 0)
+                    return -1;
+                i = page << PAGE_BITS;
+            }
+            word = getWord(i);
+        }
+        return (i << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Copy the bits of a grid of the same size
+     * @param other grid to copy
+     */
+    public void copy(BitGrid other) {
+        clear();
+        for (int p = other.nextPage(0); p >= 0; p = other.nextPage(p + 1))
+            System.arraycopy(other.pages[p], 0, page(p), 0, PAGE_WORDS);
+    }
+
+    /**
+     * Keep the cells which are in this grid or in another one
+     * @param other grid of the same size
+     */
+    public void or(BitGrid other) {
+        for (int p = other.nextPage(0); p >= 0; p = other.nextPage(p + 1)) {
+            long[] page = page(p);
+            long[] otherPage = other.pages[p];
+            for (int i = 0; i < PAGE_WORDS; i++)
+                page[i] |= otherPage[i];
+        }
+    }
+
+    /**
+     * Keep the cells which are in this grid and in another one
+     * @param other grid of the same size
+     */
+    public void and(BitGrid other) {
+        for (int p = nextPage(0); p >= 0; p = nextPage(p + 1)) {
+            long[] page = pages[p];
+            long[] otherPage = other.pages[p];
+            for (int i = 0; i < PAGE_WORDS; i++)
+                page[i] &= otherPage == null ? 0 : otherPage[i];
+        }
+    }
+
+    /**
+     * Keep the cells which are in this grid but not in another one
+     * @param other grid of the same size
+     */
+    public void andNot(BitGrid other) {
+        for (int p = nextPage(0); p >= 0; p = nextPage(p + 1)) {
+            long[] page = pages[p];
+            long[] otherPage = other.pages[p];
+            if (otherPage == null)
+                continue;
+            for (int i = 0; i < PAGE_WORDS; i++)
+                page[i] &= ~otherPage[i];
+        }
+    }
+
+    /**
+     * Replace the bits of this grid by the neighbours of the cells of another grid, diagonals excluded.
+     * Every word of the other grid which has a bit set is spread to the words it reaches: the cells on the next
+     * or previous y by shifting the word by one bit, without the cells which would wrap from the last y of a row
+     * to the first y of the next one, the cells on the next or previous x by shifting the word by height bits.
+     * @param other grid of the same size, different from this one
+     */
+    public void neighboursOf(BitGrid other) {
+        clear();
+        int wordShift = height >>> 6;
+        int bitShift = height & 63;
+        for (int p = other.nextPage(0); p >= 0; p = other.nextPage(p + 1)) {
+            long[] source = other.pages[p];
+            for (int w = 0; w < PAGE_WORDS; w++) {
+                long word = source[w];
+                if (word == 0)
+                    continue;
+                int i = (p << PAGE_BITS) + w;
+                long down = word & ~rowMask(i, height - 1);
+                long up = word & ~rowMask(i, 0);
+                or(i, down << 1 | up >>> 1);
+                or(i + 1, down >>> 63);
+                or(i - 1, up << 63);
+                or(i + wordShift, word << bitShift);
+                or(i - wordShift, word >>> bitShift);
+                if (bitShift != 0) {
+                    or(i + wordShift + 1, word >>> (64 - bitShift));
+                    or(i - wordShift - 1, word << (64 - bitShift));
+                }
+            }
+        }
+        int tail = size() & 63;
+        if (tail != 0)
+            setWord(wordCount - 1, getWord(wordCount - 1) & -1L >>> (64 - tail));
+    }
+
+    /**
+     * Set the bits of a word in another word of the grid, if it is in the grid
+     */
+    private void or(int i, long word) {
+        if (word != 0 && i >= 0 && i < wordCount)
+            page(i >>> PAGE_BITS)[i & (PAGE_WORDS - 1)] |= word;
+    }
+
+    /**
+     * Get the bits of a word whose cells are on a given y
+     * @param i index of the word
+     * @param y of the cells
+     * @return mask of the cells of the word on this y
+     */
+    private long rowMask(int i, int y) {
+        long first = (long) i << 6;
+        long mask = 0;
+        for (long bit = Math.floorMod(y - first, height); bit < 64; bit += height)
+            mask |= 1L << bit;
+        return mask;
+    }
+
+    /**
+     * Get a page, allocated if it does not exist yet
+     * @param p index of the page
+     * @return the words of the page
+     */
+    private long[] page(int p) {
+        long[] page = pages[p];
+        if (page == null) {
+            page = new long[PAGE_WORDS];
+            pages[p] = page;
+            allocated[p >>> 6] |= 1L << p;
+        }
+        return page;
+    }
+
+    /**
+     * Get the first allocated page, from a page included
+     * @param from index of the first page to look at
+     * @return index of the page, or -1 if there is none
+     */
+    private int nextPage(int from) {
+        int i = from >>> 6;
+        if (i >= allocated.length)
+            return -1;
+        long word = allocated[i] & -1L << from;
+        while (word == 0) {
+            if (++i == allocated.length)
+                return -1;
+            word = allocated[i];
+        }
+        return (i << 6) + Long.numberOfTrailingZeros(word);
+    }
+}
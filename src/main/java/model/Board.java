@@ -1,40 +1,123 @@
 package model;
 
-import javafx.scene.layout.ColumnConstraints;
-import javafx.scene.layout.GridPane;
-import javafx.scene.layout.RowConstraints;
 import lombok.Getter;
 import lombok.Setter;
+import metrics.Metrics;
+import metrics.Phase;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
 
 /**
- * Class that represents the board of the game
+ * Class that represents the board of the game.
+ * The state of every tile is packed in one byte of a cell indexed by x * height + y,
+ * tiles are only views on these cells, created the first time they are asked for.
+ * The cells are stored in one flat array generated at the start of every level, or, on a chunked board,
+ * in chunks generated the first time they are touched, for levels too large to be generated at once.
  */
 public class Board {
-    @Getter @Setter
-    private List<List<Tile>> tiles;
+    public static final int CHARACTER = 1;
+    public static final int MONSTER = 1 << 1;
+    public static final int BAD_SMELLING = 1 << 2;
+    public static final int CREVASSE = 1 << 3;
+    public static final int WINDY = 1 << 4;
+    public static final int PORTAL = 1 << 5;
+    public static final int DISCOVERED = 1 << 6;
+    public static final int BOUNDARY = 1 << 7;
+
+    /**
+     * Number of rows, cells of the same x, generated with the same random stream
+     */
+    public static final int STRIPE = 64;
+    /**
+     * Number of cells from which the generation of the items is split between threads
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
+    /**
+     * System property used to store the cells of the boards in chunks generated on demand
+     */
+    public static final String CHUNKED_PROPERTY = "magicmaze.chunked";
+    private static final int WORD_BLOCK = 1024;
+
+    private CellStore store;
+    @Getter
+    private final boolean chunked;
     @Getter @Setter
     private int height;
     @Getter @Setter
     private int width;
+    @Getter @Setter
+    private BoardListener listener;
+    @Getter
+    private final RandomStreams randomStreams;
+    private final BitSet batchCells = new BitSet();
+    private int batchDepth;
+    private boolean batchBoardChanged;
 
     public Board(int height, int width) {
+        this(height, width, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Board constructor, the cells are chunked if the magicmaze.chunked system property is true
+     * @param height of the board
+     * @param width of the board
+     * @param seed of the game, the same seed generates the same levels
+     */
+    public Board(int height, int width, long seed) {
+        this(height, width, seed, Boolean.getBoolean(CHUNKED_PROPERTY));
+    }
+
+    /**
+     * Board constructor
+     * @param height of the board
+     * @param width of the board
+     * @param seed of the game, the same seed generates the same levels
+     * @param chunked true to generate the cells in chunks the first time they are touched,
+     *                a chunked board does not generate the same levels as a flat one
+     */
+    public Board(int height, int width, long seed, boolean chunked) {
         this.height = height;
         this.width = width;
-        this.tiles = new ArrayList<>();
-        for (int i = 0; i < height; i++) {
-            List<Tile> row = new ArrayList<>();
-            for (int j = 0; j < width; j++) {
-                Tile tile = new Tile();
-                tile.setX(i);
-                tile.setY(j);
-                row.add(tile);
-            }
-            tiles.add(row);
-        }
+        this.chunked = chunked;
+        this.randomStreams = new RandomStreams(seed);
+        allocate();
+    }
+
+    /**
+     * Allocate the cells and the tiles of the board for its current size and level
+     */
+    private void allocate() {
+        store = chunked ? new ChunkedCellStore(this, randomStreams.getCellSeed()) : new FlatCellStore(this);
+        batchCells.clear();
+    }
+
+    /**
+     * Get the index of a cell in the flat arrays of the board
+     * @param x of the cell
+     * @param y of the cell
+     * @return index of the cell
+     */
+    public int index(int x, int y) {
+        return x * height + y;
+    }
+
+    /**
+     * Get the number of cells of the board
+     * @return number of cells
+     */
+    public int size() {
+        return width * height;
+    }
+
+    /**
+     * Get the flat array of the cells of the board
+     * @return the array of the cells, or null on a chunked board
+     */
+    public byte[] getCells() {
+        return store.getCells();
     }
 
     /**
@@ -44,26 +127,114 @@ public class Board {
      * @return tile at position x, y
      */
     public Tile getTile(int x, int y) {
-        return tiles.get(x).get(y);
+        return getTile(index(x, y));
     }
 
     /**
-     * Get possible neighbours of a tile
-     * @param tile to get neighbours
-     * @return list of neighbours of the tile
+     * Get a tile from the board
+     * @param cell index of the tile
+     * @return tile at this index
      */
-    public List<Tile> getNeighbours(Tile tile) {
-        int x = (int) tile.getX();
-        int y = (int) tile.getY();
-        List<Tile> neighbors = new ArrayList<>();
+    public Tile getTile(int cell) {
+        return store.getTile(cell);
+    }
+
+    /**
+     * Check if a flag is set on a cell
+     * @param cell index of the cell
+     * @param flag to check
+     * @return true if the flag is set, false otherwise
+     */
+    public boolean hasFlag(int cell, int flag) {
+        return (store.get(cell) & flag) != 0;
+    }
+
+    /**
+     * Set or clear a flag on a cell, atomically so the other flags of the cell can be changed by other threads
+     * @param cell index of the cell
+     * @param flag to set or clear
+     * @param value true to set the flag, false to clear it
+     */
+    public void setFlag(int cell, int flag, boolean value) {
+        if (value)
+            store.getAndSetFlags(cell, flag);
+        else
+            store.getAndClearFlags(cell, flag);
+    }
+
+    /**
+     * Set a flag on a cell if it is not set yet, used to arbitrate between characters playing on the same board
+     * @param cell index of the cell
+     * @param flag to set
+     * @return true if the flag has been set by this call, false if it was already set
+     */
+    public boolean trySetFlag(int cell, int flag) {
+        return (store.getAndSetFlags(cell, flag) & flag) == 0;
+    }
+
+    /**
+     * Clear a flag on a cell if it is set, used to arbitrate between characters playing on the same board
+     * @param cell index of the cell
+     * @param flag to clear
+     * @return true if the flag has been cleared by this call, false if it was already clear
+     */
+    public boolean tryClearFlag(int cell, int flag) {
+        return (store.getAndClearFlags(cell, flag) & flag) != 0;
+    }
+
+    /**
+     * Write the possible neighbours of a cell into a buffer, without allocating anything
+     * @param cell index of the cell
+     * @param neighbours buffer of at least 4 elements that receives the index of the neighbours
+     * @return number of neighbours written in the buffer
+     */
+    public int getNeighbours(int cell, int[] neighbours) {
+        int x = cell / height;
+        int y = cell % height;
+        int count = 0;
         if (x > 0)
-            neighbors.add(getTile(x - 1, y));
+            neighbours[count++] = cell - height;
         if (x < width - 1)
-            neighbors.add(getTile(x + 1, y));
+            neighbours[count++] = cell + height;
         if (y > 0)
-            neighbors.add(getTile(x, y - 1));
+            neighbours[count++] = cell - 1;
         if (y < height - 1)
-            neighbors.add(getTile(x, y + 1));
+            neighbours[count++] = cell + 1;
+        return count;
+    }
+
+    /**
+     * Write all the neighbours of a cell, diagonals included, into a buffer, without allocating anything
+     * @param cell index of the cell
+     * @param neighbours buffer of at least 8 elements that receives the index of the neighbours
+     * @return number of neighbours written in the buffer
+     */
+    public int getAllNeighbours(int cell, int[] neighbours) {
+        int x = cell / height;
+        int y = cell % height;
+        int count = getNeighbours(cell, neighbours);
+        if (x > 0 && y > 0)
+            neighbours[count++] = cell - height - 1;
+        if (x > 0 && y < height - 1)
+            neighbours[count++] = cell - height + 1;
+        if (x < width - 1 && y > 0)
+            neighbours[count++] = cell + height - 1;
+        if (x < width - 1 && y < height - 1)
+            neighbours[count++] = cell + height + 1;
+        return count;
+    }
+
+    /**
+     * Get possible neighbours of a tile
+     * @param tile to get neighbours
+     * @return list of neighbours of the tile
+     */
+    public List<Tile> getNeighbours(Tile tile) {
+        int[] neighbours = new int[4];
+        int count = getNeighbours(tile.getIndex(), neighbours);
+        List<Tile> neighbors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            neighbors.add(getTile(neighbours[i]));
         return neighbors;
     }
 
@@ -73,39 +244,25 @@ public class Board {
      * @return list of neighbours of the tile
      */
     public List<Tile> getAllNeighbours(Tile tile) {
-        int x = (int) tile.getX();
-        int y = (int) tile.getY();
-        List<Tile> neighbors = new ArrayList<>();
-        if (x > 0)
-            neighbors.add(getTile(x - 1, y));
-        if (x < width - 1)
-            neighbors.add(getTile(x + 1, y));
-        if (y > 0)
-            neighbors.add(getTile(x, y - 1));
-        if (y < height - 1)
-            neighbors.add(getTile(x, y + 1));
-        if (x > 0 && y > 0)
-            neighbors.add(getTile(x - 1, y - 1));
-        if (x > 0 && y < height - 1)
-            neighbors.add(getTile(x - 1, y + 1));
-        if (x < width - 1 && y > 0)
-            neighbors.add(getTile(x + 1, y - 1));
-        if (x < width - 1 && y < height - 1)
-            neighbors.add(getTile(x + 1, y + 1));
+        int[] neighbours = new int[8];
+        int count = getAllNeighbours(tile.getIndex(), neighbours);
+        List<Tile> neighbors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            neighbors.add(getTile(neighbours[i]));
         return neighbors;
     }
 
     /**
      * Get discovered neighbours of a tile
      * @param tile to get neighbours
-     * @param discoveredTiles list of discovered tiles
+     * @param discoveredTiles grid of the discovered tiles
      * @return list of discovered neighbours of the tile
      */
-    public List<Tile> getDiscoveredNeighbours(Tile tile, LinkedHashSet<Tile> discoveredTiles) {
+    public List<Tile> getDiscoveredNeighbours(Tile tile, BitGrid discoveredTiles) {
         List<Tile> neighbours = getNeighbours(tile);
         List<Tile> discoveredNeighbours = new ArrayList<>();
         for (Tile neighbour : neighbours) {
-            if (discoveredTiles.contains(neighbour)) {
+            if (discoveredTiles.get(neighbour.getIndex())) {
                 discoveredNeighbours.add(neighbour);
             }
         }
@@ -113,83 +270,240 @@ public class Board {
     }
 
     /**
-     * Method that generates items randomly on the board
+     * Method that generates items randomly on the board, split between threads on large boards
      */
     public void generateItems() {
-        tiles.forEach(row -> row.forEach(tile -> {
-            Random random = new Random();
-            if (random.nextInt(100) < 20) {
-                if (random.nextInt(100) < 50) {
-                    tile.setCrevasse(true);
-                    List<Tile> neighbors = getNeighbours(tile);
-                    neighbors.forEach(neighbor ->
-                    {
-                        neighbor.setWindy(true);
-                        neighbor.draw();
-                    });
-                } else {
-                    tile.setMonster(true);
-                    List<Tile> neighbors = getNeighbours(tile);
-                    neighbors.forEach(neighbor ->
-                    {
-                        neighbor.setBadSmelling(true);
-                        neighbor.draw();
-                    });
-                }
+        generateItems(size() >= PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Method that generates items randomly on the board.
+     * The hazards are placed first, every stripe of rows with its own random stream of the level,
+     * then the percepts of every cell are derived from the hazards of its neighbours.
+     * Each pass only writes cells it owns, so both are split between threads without any lock
+     * and the board is the same whether it is generated in parallel or not.
+     * A chunked board generates its items one chunk at a time when they are touched, only its portal is placed here.
+     * The listener is then told that the whole board has changed, instead of every tile.
+     * @param parallel true to split the generation between threads
+     */
+    public void generateItems(boolean parallel) {
+        byte[] cells = store.getCells();
+        if (cells != null) {
+            long start = Metrics.start();
+            int stripes = (width + STRIPE - 1) / STRIPE;
+            IntStream hazards = IntStream.range(0, stripes);
+            IntStream percepts = IntStream.range(0, width);
+            if (parallel) {
+                hazards = hazards.parallel();
+                percepts = percepts.parallel();
             }
-            tile.draw();
-        }));
+            hazards.forEach(stripe -> placeHazards(cells, stripe));
+            percepts.forEach(x -> derivePercepts(cells, x));
+            Metrics.record(Phase.GENERATION, width, height, start);
+        }
+
+        boardChanged();
 
         Tile portalTile = getRandomEmptyTile();
         portalTile.setPortal(true);
-        portalTile.draw();
+        draw(portalTile);
     }
 
     /**
-     * Method called when the character changes level
-     * @param gridPane
-     * @param character
-     * @param height of the new level
-     * @param width of the new level
+     * Place the crevasses and the monsters of a stripe of rows
+     * @param cells flat array of the cells
+     * @param stripe number of the stripe
      */
-    public void updateBoardSize(GridPane gridPane, Character character, int height, int width) {
-        gridPane.getChildren().clear();
-        setHeight(height);
-        setWidth(width);
+    private void placeHazards(byte[] cells, int stripe) {
+        SplittableRandom random = randomStreams.getLayout(stripe);
+        int from = stripe * STRIPE * height;
+        int to = Math.min(width, (stripe + 1) * STRIPE) * height;
+        for (int cell = from; cell < to; cell++) {
+            if (random.nextInt(100) < 20)
+                cells[cell] |= random.nextInt(100) < 50 ? CREVASSE : MONSTER;
+        }
+    }
 
-        tiles = new ArrayList<>();
-        for (int i = 0; i < getHeight(); i++) {
-            List<Tile> row = new ArrayList<>();
-            for (int j = 0; j < getWidth(); j++) {
-                Tile tile = new Tile();
-                tile.setX(i);
-                tile.setY(j);
-                row.add(tile);
-            }
-            tiles.add(row);
+    /**
+     * Mark the cells of a row next to a crevasse as windy and the cells next to a monster as bad smelling
+     * @param cells flat array of the cells
+     * @param x of the row
+     */
+    private void derivePercepts(byte[] cells, int x) {
+        int from = x * height;
+        for (int y = 0; y < height; y++) {
+            int cell = from + y;
+            int hazards = 0;
+            if (x > 0)
+                hazards |= cells[cell - height];
+            if (x < width - 1)
+                hazards |= cells[cell + height];
+            if (y > 0)
+                hazards |= cells[cell - 1];
+            if (y < height - 1)
+                hazards |= cells[cell + 1];
+            if ((hazards & CREVASSE) != 0)
+                cells[cell] |= WINDY;
+            if ((hazards & MONSTER) != 0)
+                cells[cell] |= BAD_SMELLING;
         }
+    }
 
-        for(int i = 0; i < getWidth(); i++) {
-            for(int j = 0; j < getHeight(); j++) {
-                Tile tile = getTile(i, j);
-                tile.setHeight(600.0 / getHeight());
-                tile.setWidth(600.0 / getWidth());
-                gridPane.add(getTile(i, j), i, j);
+    /**
+     * Set a flag on the cells of a grid, the other cells are left unchanged.
+     * Only the set bits are visited, and the words are split between threads on large flat boards.
+     * @param grid of the cells, of the size of the board
+     * @param flag to set
+     */
+    public void setFlags(BitGrid grid, int flag) {
+        int wordCount = grid.getWordCount();
+        byte[] cells = store.getCells();
+        if (cells == null) {
+            for (int cell = grid.nextSetBit(0); cell >= 0; cell = grid.nextSetBit(cell + 1))
+                setFlag(cell, flag, true);
+            return;
+        }
+        IntStream blocks = IntStream.range(0, (wordCount + WORD_BLOCK - 1) / WORD_BLOCK);
+        if (cells.length >= PARALLEL_THRESHOLD)
+            blocks = blocks.parallel();
+        blocks.forEach(block -> {
+            for (int i = block * WORD_BLOCK; i < Math.min(wordCount, (block + 1) * WORD_BLOCK); i++) {
+                for (long word = grid.getWord(i); word != 0; word &= word - 1)
+                    cells[(i << 6) + Long.numberOfTrailingZeros(word)] |= flag;
             }
+        });
+    }
+
+    /**
+     * Get the cells on which a flag is set
+     * @param flag to look for
+     * @param grid receiving the cells, of the size of the board
+     */
+    public void getFlags(int flag, BitGrid grid) {
+        int size = size();
+        for (int i = 0; i < grid.getWordCount(); i++) {
+            long word = 0;
+            for (int cell = i << 6, bit = 0; bit < 64 && cell < size; cell++, bit++) {
+                if (hasFlag(cell, flag))
+                    word |= 1L << bit;
+            }
+            grid.setWord(i, word);
         }
+    }
 
-        for (RowConstraints row : gridPane.getRowConstraints())
-            row.setPercentHeight(100.0 / getHeight());
+    /**
+     * Notify the listener of the board that a tile has changed, or only remember the tile during a batch
+     * @param tile that has changed
+     */
+    public void draw(Tile tile) {
+        if (listener == null)
+            return;
+        if (batchDepth > 0)
+            batchCells.set(tile.getIndex());
+        else
+            listener.tileChanged(tile);
+    }
+
+    /**
+     * Notify the listener of the board that all the tiles have changed, or only remember it during a batch
+     */
+    private void boardChanged() {
+        if (listener == null)
+            return;
+        if (batchDepth > 0)
+            batchBoardChanged = true;
+        else
+            listener.boardChanged(this);
+    }
 
-        for (ColumnConstraints column : gridPane.getColumnConstraints())
-            column.setPercentWidth(100.0 / getWidth());
+    /**
+     * Start a batch: the tiles which change are remembered instead of notified, batches can be nested
+     */
+    public void beginBatch() {
+        batchDepth++;
+    }
 
+    /**
+     * End a batch: at the end of the outermost batch, the listener is notified of a change of level if any,
+     * then once for every tile which has changed during the batch, whatever the number of times it has changed.
+     * A batch can end on another thread than the one which has started it, the listener is only called here.
+     */
+    public void endBatch() {
+        if (--batchDepth > 0)
+            return;
+        if (listener != null) {
+            long start = Metrics.start();
+            if (batchBoardChanged)
+                listener.boardChanged(this);
+            for (int cell = batchCells.nextSetBit(0); cell >= 0; cell = batchCells.nextSetBit(cell + 1))
+                listener.tileChanged(getTile(cell));
+            Metrics.record(Phase.RENDERING, width, height, start);
+        }
+        batchCells.clear();
+        batchBoardChanged = false;
+    }
+
+    /**
+     * Check if the changes of the tiles are batched
+     * @return true during a batch
+     */
+    public boolean isBatching() {
+        return batchDepth > 0;
+    }
+
+    /**
+     * Method called when the character changes level
+     * @param character
+     * @param height of the new level
+     * @param width of the new level
+     */
+    public void updateBoardSize(Character character, int height, int width) {
+        startLevel(character, randomStreams.getLevel() + 1, height, width);
+    }
+
+    /**
+     * Method that generates a level of the game again from the seed, used to jump to a level of a replay
+     * @param character placed on the level
+     * @param level number of the level in the game, from 0, deaths included
+     * @param height of the level
+     * @param width of the level
+     */
+    public void startLevel(Character character, int level, int height, int width) {
+        long start = Metrics.start();
+        setHeight(height);
+        setWidth(width);
+        randomStreams.startLevel(level);
+        allocate();
         generateItems();
 
         Tile characterTile = getRandomEmptyTile();
         characterTile.setCharacter(true);
         character.getSensor().setTile(characterTile);
-        characterTile.draw();
+        draw(characterTile);
+        Metrics.record(Phase.LEVEL_CHANGE, width, height, start);
+    }
+
+    /**
+     * Method that starts again a level loaded from a file, used to jump to the first level of a replay
+     * @param character placed on the start tile of the level
+     * @param level loaded from a file, the board must be flat like the board of the level
+     */
+    public void startLevel(Character character, LevelFile level) {
+        long start = Metrics.start();
+        Board source = level.getBoard();
+        setHeight(source.getHeight());
+        setWidth(source.getWidth());
+        randomStreams.startLevel(source.getRandomStreams().getLevel());
+        allocate();
+        System.arraycopy(source.getCells(), 0, store.getCells(), 0, size());
+        boardChanged();
+
+        // The start tile is drawn like in LevelFile.getStartTile, from the same placement stream
+        Tile characterTile = level.getStartCell() < 0 ? getRandomEmptyTile() : getTile(level.getStartCell());
+        characterTile.setCharacter(true);
+        character.getSensor().setTile(characterTile);
+        draw(characterTile);
+        Metrics.record(Phase.LEVEL_CHANGE, width, height, start);
     }
 
     /**
@@ -197,7 +511,7 @@ public class Board {
      * @return random empty tile
      */
     public Tile getRandomEmptyTile() {
-        Random random = new Random();
+        SplittableRandom random = randomStreams.getPlacement();
         int x = random.nextInt(width);
         int y = random.nextInt(height);
         Tile tile = getTile(x, y);
@@ -0,0 +1,19 @@
+package model;
+
+/**
+ * Interface used by a view to follow the changes of a board
+ */
+public interface BoardListener {
+
+    /**
+     * Method called when the state of a tile has changed
+     * @param tile that has changed
+     */
+    void tileChanged(Tile tile);
+
+    /**
+     * Method called when all the tiles of the board have been replaced
+     * @param board that has changed
+     */
+    void boardChanged(Board board);
+}
@@ -0,0 +1,50 @@
+package model;
+
+/**
+ * Interface of the storages of the cells of a board, one byte of flags per cell indexed by x * height + y
+ */
+interface CellStore {
+
+    /**
+     * Get the flags of a cell
+     * @param cell index of the cell
+     * @return flags of the cell
+     */
+    byte get(int cell);
+
+    /**
+     * Replace the flags of a cell
+     * @param cell index of the cell
+     * @param value new flags of the cell
+     */
+    void set(int cell, byte value);
+
+    /**
+     * Set flags on a cell atomically, even if other threads change the same cell
+     * @param cell index of the cell
+     * @param flags to set
+     * @return flags of the cell before the change
+     */
+    byte getAndSetFlags(int cell, int flags);
+
+    /**
+     * Clear flags on a cell atomically, even if other threads change the same cell
+     * @param cell index of the cell
+     * @param flags to clear
+     * @return flags of the cell before the change
+     */
+    byte getAndClearFlags(int cell, int flags);
+
+    /**
+     * Get the tile of a cell, created the first time it is asked for
+     * @param cell index of the cell
+     * @return tile of the cell
+     */
+    Tile getTile(int cell);
+
+    /**
+     * Get the flat array of the cells, if the cells are stored in one
+     * @return the array of the cells, or null if they are not stored in one array
+     */
+    byte[] getCells();
+}
@@ -19,9 +19,17 @@ public class Character {
     private Effector effector;
 
     public Character(Board board) {
-        Tile startTile = board.getRandomEmptyTile();
+        this(board, board.getRandomEmptyTile());
+    }
+
+    /**
+     * Character constructor
+     * @param board on which the character plays
+     * @param startTile on which the character starts
+     */
+    public Character(Board board, Tile startTile) {
         startTile.setCharacter(true);
-        startTile.draw();
+        board.draw(startTile);
         this.sensor = new Sensor(board, startTile);
         this.effector = new Effector(this.sensor);
         this.decision = new Decision(this.sensor);
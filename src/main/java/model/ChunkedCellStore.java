@@ -0,0 +1,216 @@
+package model;
+
+import lombok.Getter;
+import java.util.ArrayDeque;
+
+/**
+ * Class that stores the cells of a board in square chunks generated the first time one of their cells is touched.
+ * Every cell draws its hazard from a hash of its index and of the seed of the level, so a chunk is generated
+ * from the seed alone, without its neighbours, and always the same way. A chunk which has only been read
+ * can then be evicted and generated again later: the least recently used of them are evicted once there are
+ * more than MAX_CLEAN_CHUNKS, while a chunk which has been written to is kept until the end of the level.
+ * The memory used grows with the explored part of the board instead of its size. The accesses are synchronized,
+ * as a view painting the visible tiles can generate or evict chunks while the planner plays.
+ */
+class ChunkedCellStore implements CellStore {
+    static final int CHUNK_BITS = 6;
+    static final int CHUNK = 1 << CHUNK_BITS;
+    /**
+     * Number of chunks which have not been written to kept in memory
+     */
+    static final int MAX_CLEAN_CHUNKS = 256;
+    private static final int STRIDE = CHUNK + 2;
+
+    private final Board board;
+    private final int height;
+    private final int width;
+    private final int chunksY;
+    private final long cellSeed;
+    private final Chunk[] chunks;
+    private final ArrayDeque<Chunk> cleanChunks = new ArrayDeque<>();
+    private final byte[] hazards = new byte[STRIDE * STRIDE];
+    @Getter
+    private int residentChunks;
+    @Getter
+    private long generatedChunks;
+
+    /**
+     * Class that holds the cells and the tiles of a chunk
+     */
+    private static class Chunk {
+        private final int id;
+        private final byte[] cells = new byte[CHUNK * CHUNK];
+        private Tile[] tiles;
+        private boolean dirty;
+        private boolean referenced;
+
+        private Chunk(int id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * ChunkedCellStore constructor, no chunk is generated yet
+     * @param board whose cells are stored, of its current size
+     * @param cellSeed seed of the hazards of the cells of the level
+     */
+    ChunkedCellStore(Board board, long cellSeed) {
+        this.board = board;
+        this.height = board.getHeight();
+        this.width = board.getWidth();
+        this.cellSeed = cellSeed;
+        this.chunksY = (height + CHUNK - 1) >> CHUNK_BITS;
+        this.chunks = new Chunk[((width + CHUNK - 1) >> CHUNK_BITS) * chunksY];
+    }
+
+    @Override
+    public synchronized byte get(int cell) {
+        int x = cell / height;
+        int y = cell - x * height;
+        return chunk(x, y).cells[offset(x, y)];
+    }
+
+    @Override
+    public synchronized void set(int cell, byte value) {
+        int x = cell / height;
+        int y = cell - x * height;
+        Chunk chunk = chunk(x, y);
+        int offset = offset(x, y);
+        if (chunk.cells[offset] != value) {
+            chunk.cells[offset] = value;
+            chunk.dirty = true;
+        }
+    }
+
+    @Override
+    public synchronized byte getAndSetFlags(int cell, int flags) {
+        byte value = get(cell);
+        set(cell, (byte) (value | flags));
+        return value;
+    }
+
+    @Override
+    public synchronized byte getAndClearFlags(int cell, int flags) {
+        byte value = get(cell);
+        set(cell, (byte) (value & ~flags));
+        return value;
+    }
+
+    @Override
+    public synchronized Tile getTile(int cell) {
+        int x = cell / height;
+        int y = cell - x * height;
+        Chunk chunk = chunk(x, y);
+        if (chunk.tiles == null)
+            chunk.tiles = new Tile[CHUNK * CHUNK];
+        int offset = offset(x, y);
+        Tile tile = chunk.tiles[offset];
+        if (tile == null) {
+            tile = new Tile(board, x, y);
+            chunk.tiles[offset] = tile;
+        }
+        return tile;
+    }
+
+    @Override
+    public byte[] getCells() {
+        return null;
+    }
+
+    /**
+     * Get the index of a cell in the arrays of its chunk
+     * @param x of the cell
+     * @param y of the cell
+     * @return index of the cell in its chunk
+     */
+    private static int offset(int x, int y) {
+        return (x & (CHUNK - 1)) << CHUNK_BITS | (y & (CHUNK - 1));
+    }
+
+    /**
+     * Get the chunk of a cell, generated if it is not in memory
+     * @param x of the cell
+     * @param y of the cell
+     * @return chunk of the cell
+     */
+    private Chunk chunk(int x, int y) {
+        int id = (x >> CHUNK_BITS) * chunksY + (y >> CHUNK_BITS);
+        Chunk chunk = chunks[id];
+        if (chunk == null)
+            chunk = generate(id);
+        chunk.referenced = true;
+        return chunk;
+    }
+
+    /**
+     * Get the hazard of a cell from the hash of its index: 20% of the cells hold a hazard,
+     * half of them a crevasse and the other half a monster
+     * @param cell index of the cell
+     * @return CREVASSE, MONSTER or 0
+     */
+    private int hazard(int cell) {
+        long hash = RandomStreams.mix(cellSeed, 0, cell);
+        if ((hash >>> 33) % 100 >= 20)
+            return 0;
+        return (hash & Integer.MAX_VALUE) % 100 < 50 ? Board.CREVASSE : Board.MONSTER;
+    }
+
+    /**
+     * Generate a chunk: the hazards of the chunk and of the cells around it are drawn first,
+     * then the percepts of every cell of the chunk are derived from them
+     * @param id of the chunk
+     * @return the generated chunk
+     */
+    private Chunk generate(int id) {
+        int fromX = (id / chunksY) << CHUNK_BITS;
+        int fromY = (id % chunksY) << CHUNK_BITS;
+        int toX = Math.min(width, fromX + CHUNK);
+        int toY = Math.min(height, fromY + CHUNK);
+        for (int x = fromX - 1; x <= toX; x++) {
+            for (int y = fromY - 1; y <= toY; y++) {
+                boolean inside = x >= 0 && x < width && y >= 0 && y < height;
+                hazards[(x - fromX + 1) * STRIDE + y - fromY + 1] = (byte) (inside ? hazard(x * height + y) : 0);
+            }
+        }
+
+        Chunk chunk = new Chunk(id);
+        for (int x = fromX; x < toX; x++) {
+            for (int y = fromY; y < toY; y++) {
+                int h = (x - fromX + 1) * STRIDE + y - fromY + 1;
+                int around = hazards[h - STRIDE] | hazards[h + STRIDE] | hazards[h - 1] | hazards[h + 1];
+                int value = hazards[h];
+                if ((around & Board.CREVASSE) != 0)
+                    value |= Board.WINDY;
+                if ((around & Board.MONSTER) != 0)
+                    value |= Board.BAD_SMELLING;
+                chunk.cells[offset(x, y)] = (byte) value;
+            }
+        }
+        chunk.referenced = true;
+        chunks[id] = chunk;
+        cleanChunks.add(chunk);
+        residentChunks++;
+        generatedChunks++;
+        evict();
+        return chunk;
+    }
+
+    /**
+     * Evict the least recently used chunks which have not been written to, with a second chance for the chunks
+     * touched since they were last looked at, until at most MAX_CLEAN_CHUNKS of them are left
+     */
+    private void evict() {
+        while (cleanChunks.size() > MAX_CLEAN_CHUNKS) {
+            Chunk chunk = cleanChunks.poll();
+            if (chunk.dirty)
+                continue;
+            if (chunk.referenced) {
+                chunk.referenced = false;
+                cleanChunks.add(chunk);
+            } else {
+                chunks[chunk.id] = null;
+                residentChunks--;
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Class that stores all the cells of a board in one flat array, the items are generated by the board.
+ * The flags are changed with atomic operations on the bytes of the array, and a tile created by two threads
+ * at once is only kept once, so several characters can play on the board without any lock.
+ */
+class FlatCellStore implements CellStore {
+    private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final VarHandle TILES = MethodHandles.arrayElementVarHandle(Tile[].class);
+
+    private final Board board;
+    private final byte[] cells;
+    private final Tile[] tiles;
+
+    /**
+     * FlatCellStore constructor
+     * @param board whose cells are stored, of its current size
+     */
+    FlatCellStore(Board board) {
+        this.board = board;
+        this.cells = new byte[board.getWidth() * board.getHeight()];
+        this.tiles = new Tile[cells.length];
+    }
+
+    @Override
+    public byte get(int cell) {
+        return cells[cell];
+    }
+
+    @Override
+    public void set(int cell, byte value) {
+        cells[cell] = value;
+    }
+
+    @Override
+    public byte getAndSetFlags(int cell, int flags) {
+        return (byte) CELLS.getAndBitwiseOr(cells, cell, (byte) flags);
+    }
+
+    @Override
+    public byte getAndClearFlags(int cell, int flags) {
+        return (byte) CELLS.getAndBitwiseAnd(cells, cell, (byte) ~flags);
+    }
+
+    @Override
+    public Tile getTile(int cell) {
+        Tile tile = tiles[cell];
+        if (tile == null) {
+            Tile created = new Tile(board, cell / board.getHeight(), cell % board.getHeight());
+            tile = (Tile) TILES.compareAndExchange(tiles, cell, (Tile) null, created);
+            if (tile == null)
+                tile = created;
+        }
+        return tile;
+    }
+
+    @Override
+    public byte[] getCells() {
+        return cells;
+    }
+}
@@ -0,0 +1,128 @@
+package model;
+
+import lombok.Getter;
+import java.util.Arrays;
+
+/**
+ * Class that stores one int for every cell of a board, indexed like the board, x * height + y.
+ * The values of a flat board are held in one array. The values of a chunked board are held in square chunks
+ * of the same size as the chunks of its cells, allocated the first time one of their values is written,
+ * so the memory used grows with the cells which have been written and not with the size of the board.
+ */
+public class IntGrid {
+    private static final int CHUNK_BITS = ChunkedCellStore.CHUNK_BITS;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+
+    @Getter
+    private int height;
+    @Getter
+    private int width;
+    @Getter
+    private final boolean chunked;
+    private final int defaultValue;
+    private int[] values;
+    private int[][] chunks;
+    private int chunksY;
+    private int[] allocatedChunks = new int[16];
+    private int allocatedCount;
+
+    /**
+     * IntGrid constructor, every value is the default one
+     * @param height of the board
+     * @param width of the board
+     * @param chunked true to allocate the values in chunks the first time they are written
+     * @param defaultValue of the cells never written
+     */
+    public IntGrid(int height, int width, boolean chunked, int defaultValue) {
+        this.chunked = chunked;
+        this.defaultValue = defaultValue;
+        resize(height, width);
+    }
+
+    /**
+     * IntGrid constructor for the cells of a board, chunked if the board is chunked
+     * @param board whose cells are indexed
+     * @param defaultValue of the cells never written
+     */
+    public IntGrid(Board board, int defaultValue) {
+        this(board.getHeight(), board.getWidth(), board.isChunked(), defaultValue);
+    }
+
+    /**
+     * Give every cell its default value and make the grid fit a board of another size
+     * @param height of the board
+     * @param width of the board
+     */
+    public void resize(int height, int width) {
+        this.height = height;
+        this.width = width;
+        allocatedCount = 0;
+        if (chunked) {
+            values = null;
+            chunksY = (height + CHUNK - 1) >> CHUNK_BITS;
+            chunks = new int[((width + CHUNK - 1) >> CHUNK_BITS) * chunksY][];
+        } else {
+            chunks = null;
+            values = new int[height * width];
+            if (defaultValue != 0)
+                Arrays.fill(values, defaultValue);
+        }
+    }
+
+    /**
+     * Check if the grid has the size of a board
+     * @param board to compare with
+     * @return true if the board has the height and the width of the grid
+     */
+    public boolean fits(Board board) {
+        return board.getHeight() == height && board.getWidth() == width;
+    }
+
+    public int get(int cell) {
+        if (values != null)
+            return values[cell];
+        int x = cell / height;
+        int y = cell - x * height;
+        int[] chunk = chunks[(x >> CHUNK_BITS) * chunksY + (y >> CHUNK_BITS)];
+        return chunk == null ? defaultValue : chunk[offset(x, y)];
+    }
+
+    public void set(int cell, int value) {
+        if (values != null) {
+            values[cell] = value;
+            return;
+        }
+        int x = cell / height;
+        int y = cell - x * height;
+        int id = (x >> CHUNK_BITS) * chunksY + (y >> CHUNK_BITS);
+        int[] chunk = chunks[id];
+        if (chunk == null) {
+            if (value == defaultValue)
+                return;
+            chunk = new int[CHUNK * CHUNK];
+            if (defaultValue != 0)
+                Arrays.fill(chunk, defaultValue);
+            chunks[id] = chunk;
+            if (allocatedCount == allocatedChunks.length)
+                allocatedChunks = Arrays.copyOf(allocatedChunks, allocatedCount * 2);
+            allocatedChunks[allocatedCount++] = id;
+        }
+        chunk[offset(x, y)] = value;
+    }
+
+    /**
+     * Give every cell its default value, the chunks are kept to be used again
+     */
+    public void fill() {
+        if (values != null) {
+            Arrays.fill(values, defaultValue);
+            return;
+        }
+        for (int i = 0; i < allocatedCount; i++)
+            Arrays.fill(chunks[allocatedChunks[i]], defaultValue);
+    }
+
+    private static int offset(int x, int y) {
+        return (x & (CHUNK - 1)) << CHUNK_BITS | (y & (CHUNK - 1));
+    }
+}
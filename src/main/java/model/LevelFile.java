@@ -0,0 +1,153 @@
+package model;
+
+import lombok.Getter;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class that stores a fixed level in a compact binary file, so large mazes can be loaded again without being generated.
+ * The file starts with a header of 40 bytes: the magic number, the version, the height, the width, the seed and the
+ * number of the level, the cell of the portal and the start cell of the character, -1 if there is none.
+ * Then come two planes, the crevasses and the monsters, of one bit per cell in words of 64 cells indexed like
+ * the board and stored in little-endian order, as in a BitGrid.
+ * The percepts are not stored, the loader derives them from the planes a whole word at a time.
+ * The file is memory-mapped both to be loaded and to be written.
+ */
+public class LevelFile {
+    private static final int MAGIC = 0x4D4D4C56;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+
+    @Getter
+    private final Board board;
+    @Getter
+    private final int startCell;
+
+    private LevelFile(Board board, int startCell) {
+        this.board = board;
+        this.startCell = startCell;
+    }
+
+    /**
+     * Get the tile on which the character starts
+     * @return the start tile of the file, or a random empty tile if the file has none
+     */
+    public Tile getStartTile() {
+        return startCell < 0 ? board.getRandomEmptyTile() : board.getTile(startCell);
+    }
+
+    /**
+     * Load a level from a file. The levels which follow it are generated from its seed, as in a game.
+     * @param file written by save
+     * @return the level, whose board is flat and has no character yet
+     * @throws IOException if the file can not be read or is not a level
+     */
+    public static LevelFile load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Not a level: " + file);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC)
+                throw new IOException("Not a level: " + file);
+            if (buffer.getInt() != VERSION)
+                throw new IOException("Unknown version of level: " + file);
+            int height = buffer.getInt();
+            int width = buffer.getInt();
+            long seed = buffer.getLong();
+            int level = buffer.getInt();
+            int portal = buffer.getInt();
+            int start = buffer.getInt();
+            long cells = (long) height * width;
+            int words = (int) ((cells + 63) >>> 6);
+            if (height <= 0 || width <= 0 || cells > Integer.MAX_VALUE
+                    || channel.size() != HEADER_SIZE + 2L * words * Long.BYTES
+                    || portal < 0 || portal >= cells || start >= cells)
+                throw new IOException("Corrupted level: " + file);
+
+            BitGrid crevasses = new BitGrid(height, width);
+            BitGrid monsters = new BitGrid(height, width);
+            buffer.position(HEADER_SIZE);
+            readWords(buffer.asLongBuffer(), crevasses);
+            buffer.position(HEADER_SIZE + words * Long.BYTES);
+            readWords(buffer.asLongBuffer(), monsters);
+
+            Board board = new Board(height, width, seed, false);
+            board.getRandomStreams().startLevel(level);
+            board.setFlags(crevasses, Board.CREVASSE);
+            board.setFlags(monsters, Board.MONSTER);
+            BitGrid percepts = new BitGrid(height, width);
+            percepts.neighboursOf(crevasses);
+            board.setFlags(percepts, Board.WINDY);
+            percepts.neighboursOf(monsters);
+            board.setFlags(percepts, Board.BAD_SMELLING);
+            board.setFlag(portal, Board.PORTAL, true);
+            return new LevelFile(board, start);
+        }
+    }
+
+    /**
+     * Write the current level of a board into a file
+     * @param board to write, the cell of its character, if any, becomes the start cell
+     * @param file to write, replaced if it exists
+     * @throws IOException if the file can not be written or the board has no portal
+     */
+    public static void save(Board board, Path file) throws IOException {
+        int portal = -1;
+        int start = -1;
+        for (int cell = 0; cell < board.size(); cell++) {
+            if (board.hasFlag(cell, Board.PORTAL))
+                portal = cell;
+            if (board.hasFlag(cell, Board.CHARACTER))
+                start = cell;
+        }
+        if (portal < 0)
+            throw new IOException("The board has no portal");
+
+        BitGrid crevasses = new BitGrid(board.getHeight(), board.getWidth());
+        BitGrid monsters = new BitGrid(board.getHeight(), board.getWidth());
+        board.getFlags(Board.CREVASSE, crevasses);
+        board.getFlags(Board.MONSTER, monsters);
+        int words = crevasses.getWordCount();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + 2L * words * Long.BYTES);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(board.getHeight());
+            buffer.putInt(board.getWidth());
+            buffer.putLong(board.getRandomStreams().getSeed());
+            buffer.putInt(board.getRandomStreams().getLevel());
+            buffer.putInt(portal);
+            buffer.putInt(start);
+            buffer.position(HEADER_SIZE);
+            writeWords(crevasses, buffer.asLongBuffer());
+            buffer.position(HEADER_SIZE + words * Long.BYTES);
+            writeWords(monsters, buffer.asLongBuffer());
+            buffer.force();
+        }
+    }
+
+    /**
+     * Read the words of a grid from a buffer
+     */
+    private static void readWords(LongBuffer buffer, BitGrid grid) {
+        for (int i = 0; i < grid.getWordCount(); i++)
+            grid.setWord(i, buffer.get(i));
+    }
+
+    /**
+     * Write the words of a grid into a buffer
+     */
+    private static void writeWords(BitGrid grid, LongBuffer buffer) {
+        for (int i = 0; i < grid.getWordCount(); i++)
+            buffer.put(i, grid.getWord(i));
+    }
+}
@@ -0,0 +1,95 @@
+package model;
+
+import lombok.Getter;
+import java.util.SplittableRandom;
+
+/**
+ * Class that splits the seed of a game into independent random streams.
+ * Every level has its own layout and placement streams, derived from the seed and the number of the level,
+ * so any level of a game can be generated again from the seed alone. The layout is split into one stream
+ * per stripe of the board, so the stripes can be generated in any order. Ties of the decision use a stream of their own.
+ */
+public class RandomStreams {
+    private static final long LAYOUT = 1;
+    private static final long PLACEMENT = 2;
+    private static final long TIE_BREAKING = 3;
+    private static final long CELLS = 4;
+
+    @Getter
+    private final long seed;
+    @Getter
+    private int level;
+    private long layout;
+    @Getter
+    private SplittableRandom placement;
+    @Getter
+    private final SplittableRandom tieBreaking;
+
+    /**
+     * RandomStreams constructor, the streams start on the first level
+     * @param seed of the game
+     */
+    public RandomStreams(long seed) {
+        this.seed = seed;
+        this.tieBreaking = new SplittableRandom(mix(seed, TIE_BREAKING, 0));
+        startLevel(0);
+    }
+
+    /**
+     * Reset the layout and placement streams to the start of a level
+     * @param level number of the level in the game, from 0, deaths included
+     */
+    public void startLevel(int level) {
+        this.level = level;
+        layout = mix(seed, LAYOUT, level);
+        placement = new SplittableRandom(mix(seed, PLACEMENT, level));
+    }
+
+    /**
+     * Get a new layout stream of a stripe of the current level, every call starts the stream again
+     * @param stripe number of the stripe
+     * @return the layout stream of the stripe
+     */
+    public SplittableRandom getLayout(int stripe) {
+        return new SplittableRandom(mix(layout, LAYOUT, stripe));
+    }
+
+    /**
+     * Create a tie-breaking stream of its own for a character of a board played by several characters
+     * @param character number of the character, the stream of the character 0 starts like the one of the board
+     * @return the new tie-breaking stream
+     */
+    public SplittableRandom newTieBreaking(int character) {
+        return new SplittableRandom(mix(seed, TIE_BREAKING, character));
+    }
+
+    /**
+     * Get the seed of the hazards of the cells of the current level, hashed with the index of every cell
+     * by the boards generated one chunk at a time
+     * @return the seed of the cells
+     */
+    public long getCellSeed() {
+        return mix(layout, CELLS, 0);
+    }
+
+    /**
+     * Move the layout and placement streams to the next level
+     */
+    public void nextLevel() {
+        startLevel(level + 1);
+    }
+
+    /**
+     * Derive the seed of a stream of a level from the seed of the game, with the 64 bits finalizer of SplitMix
+     * @param seed of the game
+     * @param stream kind of stream
+     * @param level number of the level
+     * @return the seed of the stream
+     */
+    static long mix(long seed, long stream, long level) {
+        long z = seed + stream * 0x9E3779B97F4A7C15L + level * 0xC2B2AE3D27D4EB4FL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,43 +1,32 @@
 package model;
 
-import javafx.scene.image.Image;
-import javafx.scene.paint.ImagePattern;
-import javafx.scene.paint.Paint;
-import javafx.scene.shape.Rectangle;
 import lombok.Getter;
-import lombok.Setter;
 
 /**
- * Class that represents a tile of the board
+ * Class that represents a tile of the board.
+ * The flags of the tile are stored in the cells of its board.
  */
-public class Tile extends Rectangle {
-    @Getter @Setter
-    private double probability;
-    @Getter @Setter
-    private boolean character;
-    @Getter @Setter
-    private boolean monster;
-    @Getter @Setter
-    private boolean badSmelling;
-    @Getter @Setter
-    private boolean crevasse;
-    @Getter @Setter
-    private boolean windy;
-    @Getter @Setter
-    private boolean portal;
+public class Tile {
+    @Getter
+    private final Board board;
+    @Getter
+    private final int x;
+    @Getter
+    private final int y;
+    @Getter
+    private final int index;
 
     /**
      * Tile constructor
+     * @param board which stores the flags of the tile
+     * @param x position of the tile
+     * @param y position of the tile
      */
-    public Tile() {
-        this.character = false;
-        this.monster = false;
-        this.badSmelling = false;
-        this.crevasse = false;
-        this.windy = false;
-        this.portal = false;
-        this.setFill(null);
-        this.setStroke(Paint.valueOf("black"));
+    public Tile(Board board, int x, int y) {
+        this.board = board;
+        this.x = x;
+        this.y = y;
+        this.index = board.index(x, y);
     }
 
     /**
@@ -54,13 +43,21 @@ public class Tile extends Rectangle {
         return getY() == tile.getY();
     }
 
+    /**
+     * This method is used to hash a tile consistently with equals
+     */
+    @Override
+    public int hashCode() {
+        return 31 * getX() + getY();
+    }
+
     /**
      * Get x position of the tile
      * @return x position
      */
     public int getXPosition()
     {
-        return (int)getX();
+        return getX();
     }
 
     /**
@@ -69,79 +66,71 @@ public class Tile extends Rectangle {
      */
     public int getYPosition()
     {
-        return (int)getY();
+        return getY();
     }
 
-    /**
-     * Draw objects in tile if an object is present
-     */
-    public void draw() {
-        //Cas avec les cases personnages
-        if (isCharacter())
-        {
-            if (isPortal())
-            {
-                setFill(new ImagePattern(new Image("images/adventurer_portal.png")));
-            }
-            else if (isMonster())
-            {
-                setFill(new ImagePattern(new Image("images/adventurer_monster.png")));
-            }
-            else if(isCrevasse())
-            {
-                setFill(new ImagePattern(new Image("images/adventurer_sink.png")));
-            }
-            else if(isBadSmelling())
-            {
-                if (isWindy())
-                {
-                    setFill(new ImagePattern(new Image("images/adventurer_wind_bin.png")));
-                }
-                else
-                {
-                    setFill(new ImagePattern(new Image("images/adventurer_bin.png")));
-                }
-            }
-            else if(isWindy())
-            {
-                setFill(new ImagePattern(new Image("images/adventurer_wind.png")));
-            }
-            else
-            {
-                setFill(new ImagePattern(new Image("images/adventurer.png")));
-            }
-        }
-        else if (isMonster())
-        {
-            setFill(new ImagePattern(new Image("images/monster.png")));
-        }
-        else if (isCrevasse())
-        {
-            setFill(new ImagePattern(new Image("images/sink.png")));
-        }
-        else if (isPortal())
-        {
-            setFill(new ImagePattern(new Image("images/portal.png")));
-        }
-        else if (isBadSmelling())
-        {
-            if (isWindy())
-            {
-                setFill(new ImagePattern(new Image("images/bin_wind.png")));
-            }
-            else
-            {
-                setFill(new ImagePattern(new Image("images/bin.png")));
-            }
-        }
-        else if (isWindy())
-        {
-            setFill(new ImagePattern(new Image("images/wind.png")));
-        }
-        else
-        {
-            setFill(null);
-        }
+    public boolean isCharacter() {
+        return board.hasFlag(index, Board.CHARACTER);
+    }
+
+    public void setCharacter(boolean character) {
+        board.setFlag(index, Board.CHARACTER, character);
+    }
+
+    public boolean isMonster() {
+        return board.hasFlag(index, Board.MONSTER);
+    }
+
+    public void setMonster(boolean monster) {
+        board.setFlag(index, Board.MONSTER, monster);
+    }
+
+    public boolean isBadSmelling() {
+        return board.hasFlag(index, Board.BAD_SMELLING);
+    }
+
+    public void setBadSmelling(boolean badSmelling) {
+        board.setFlag(index, Board.BAD_SMELLING, badSmelling);
+    }
+
+    public boolean isCrevasse() {
+        return board.hasFlag(index, Board.CREVASSE);
+    }
+
+    public void setCrevasse(boolean crevasse) {
+        board.setFlag(index, Board.CREVASSE, crevasse);
+    }
+
+    public boolean isWindy() {
+        return board.hasFlag(index, Board.WINDY);
+    }
+
+    public void setWindy(boolean windy) {
+        board.setFlag(index, Board.WINDY, windy);
+    }
+
+    public boolean isPortal() {
+        return board.hasFlag(index, Board.PORTAL);
+    }
+
+    public void setPortal(boolean portal) {
+        board.setFlag(index, Board.PORTAL, portal);
+    }
+
+    public boolean isDiscovered() {
+        return board.hasFlag(index, Board.DISCOVERED);
+    }
+
+    public void setDiscovered(boolean discovered) {
+        board.setFlag(index, Board.DISCOVERED, discovered);
+    }
+
+    public boolean isBoundary() {
+        return board.hasFlag(index, Board.BOUNDARY);
+    }
+
+    public void setBoundary(boolean boundary) {
+        board.setFlag(index, Board.BOUNDARY, boundary);
     }
 
     /**
@@ -149,7 +138,7 @@ public class Tile extends Rectangle {
      * @return true if the tile has an item on it, false otherwise
      */
     public boolean hasItem() {
-        return isMonster() || isCrevasse() || isPortal();
+        return board.hasFlag(index, Board.MONSTER | Board.CREVASSE | Board.PORTAL);
     }
 
     /**
@@ -0,0 +1,186 @@
+package view;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.paint.Color;
+import lombok.Getter;
+import lombok.Setter;
+import metrics.Metrics;
+import metrics.Phase;
+import model.Board;
+import model.BoardListener;
+import model.Tile;
+import java.util.BitSet;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Class that paints the visible part of a board onto a single Canvas.
+ * Only the tiles of the viewport are painted, so the cost of a frame is bounded by the size of the canvas
+ * and not by the size of the board. Changed tiles are only marked as dirty, and the dirty tiles are repainted
+ * once on the next pulse, the whole viewport is repainted when it moves. Nothing is painted while the board is busy,
+ * changed by another thread, the changes are painted on the first pulse after they have been published.
+ * The wheel zooms, a drag moves the viewport, and a double click follows the character again.
+ */
+public class CanvasBoardView implements BoardListener {
+    private static final double ZOOM_FACTOR = 1.25;
+
+    @Getter
+    private final Canvas canvas;
+    @Getter
+    private final Viewport viewport;
+    private final GraphicsContext graphics;
+    /**
+     * Dirty tiles of the viewport, indexed by their position in the viewport and not on the board
+     */
+    private final BitSet dirtyCells = new BitSet();
+    private final AnimationTimer timer;
+    /**
+     * Tells whether the board is being changed by another thread and must not be read
+     */
+    @Setter
+    private BooleanSupplier boardBusy = () -> false;
+    private Board board;
+    private boolean viewportChanged;
+    private int characterX = -1;
+    private int characterY = -1;
+    private double dragX;
+    private double dragY;
+
+    public CanvasBoardView(double width, double height) {
+        this.canvas = new Canvas(width, height);
+        this.viewport = new Viewport(width, height);
+        this.graphics = canvas.getGraphicsContext2D();
+        this.timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                repaint();
+            }
+        };
+        timer.start();
+
+        canvas.setOnScroll(event -> {
+            if (event.getDeltaY() != 0 && viewport.zoom(event.getDeltaY() > 0 ? ZOOM_FACTOR : 1 / ZOOM_FACTOR,
+                    event.getX(), event.getY()))
+                viewportChanged();
+        });
+        canvas.setOnMousePressed(event -> {
+            dragX = event.getX();
+            dragY = event.getY();
+        });
+        canvas.setOnMouseDragged(event -> {
+            viewport.pan(event.getX() - dragX, event.getY() - dragY);
+            dragX = event.getX();
+            dragY = event.getY();
+            viewportChanged();
+        });
+        canvas.setOnMouseClicked(event -> {
+            if (event.getButton() == MouseButton.PRIMARY && event.getClickCount() == 2 && characterX >= 0) {
+                viewport.setFollowing(true);
+                viewport.centerOn(characterX, characterY);
+                viewportChanged();
+            }
+        });
+    }
+
+    /**
+     * Mark a tile to be repainted on the next pulse if it is visible, the viewport follows the character
+     * @param tile that has changed
+     */
+    @Override
+    public void tileChanged(Tile tile) {
+        if (tile.isCharacter()) {
+            characterX = tile.getX();
+            characterY = tile.getY();
+            if (viewport.follow(characterX, characterY))
+                viewportChanged();
+        }
+        if (!viewportChanged && viewport.isVisible(tile.getX(), tile.getY())) {
+            int rows = viewport.getLastY() - viewport.getFirstY() + 1;
+            dirtyCells.set((tile.getX() - viewport.getFirstX()) * rows + tile.getY() - viewport.getFirstY());
+        }
+    }
+
+    /**
+     * Fit the viewport to the new board and repaint it on the next pulse
+     * @param board that has changed
+     */
+    @Override
+    public void boardChanged(Board board) {
+        this.board = board;
+        viewport.resize(board.getWidth(), board.getHeight());
+        characterX = -1;
+        characterY = -1;
+        viewportChanged();
+    }
+
+    /**
+     * Stop repainting the canvas
+     */
+    public void stop() {
+        timer.stop();
+    }
+
+    /**
+     * Repaint the whole viewport on the next pulse
+     */
+    private void viewportChanged() {
+        viewportChanged = true;
+        dirtyCells.clear();
+    }
+
+    /**
+     * Repaint the whole viewport if it has changed, the dirty tiles otherwise, unless the board is busy
+     */
+    private void repaint() {
+        if (board == null || !viewportChanged && dirtyCells.isEmpty() || boardBusy.getAsBoolean())
+            return;
+        long start = Metrics.start();
+        int firstX = viewport.getFirstX();
+        int firstY = viewport.getFirstY();
+        int rows = viewport.getLastY() - firstY + 1;
+        if (viewportChanged) {
+            SpriteCache.prescale(viewport.getTileSize());
+            graphics.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+            for (int x = firstX; x <= viewport.getLastX(); x++) {
+                for (int y = firstY; y < firstY + rows; y++)
+                    paint(board.getTile(x, y));
+            }
+            viewportChanged = false;
+        } else {
+            for (int cell = dirtyCells.nextSetBit(0); cell >= 0; cell = dirtyCells.nextSetBit(cell + 1))
+                paint(board.getTile(firstX + cell / rows, firstY + cell % rows));
+        }
+        dirtyCells.clear();
+        Metrics.record(Phase.PAINT, board.getWidth(), board.getHeight(), start);
+    }
+
+    /**
+     * Paint a tile like a TileView: its sprite, then its border
+     */
+    private void paint(Tile tile) {
+        double size = viewport.getTileSize();
+        double x = viewport.toScreenX(tile.getX());
+        double y = viewport.toScreenY(tile.getY());
+        graphics.clearRect(x, y, size, size);
+        Sprite sprite = Sprite.of(tile);
+        if (sprite != null)
+            graphics.drawImage(SpriteCache.getImage(sprite), x, y, size, size);
+
+        // Discovered tiles are green, boundary tiles are blue
+        double strokeWidth = 1;
+        if (tile.isDiscovered()) {
+            graphics.setStroke(Color.GREEN);
+            strokeWidth = 3;
+        } else if (tile.isBoundary()) {
+            graphics.setStroke(Color.BLUE);
+            strokeWidth = 3;
+        } else {
+            graphics.setStroke(Color.BLACK);
+        }
+        strokeWidth = Math.min(strokeWidth, size / 4);
+        graphics.setLineWidth(strokeWidth);
+        graphics.strokeRect(x + strokeWidth / 2, y + strokeWidth / 2, size - strokeWidth, size - strokeWidth);
+    }
+}
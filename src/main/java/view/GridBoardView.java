@@ -0,0 +1,140 @@
+package view;
+
+import javafx.geometry.HPos;
+import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.layout.ColumnConstraints;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.RowConstraints;
+import model.Board;
+import model.BoardListener;
+import model.Tile;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Class that mirrors a board onto a GridPane, with one TileView per tile.
+ * The views are kept when the board changes: the existing views are redrawn in place, and only the views and the
+ * constraints of the new rows and columns are added to the GridPane, so a level, which adds one row and one column,
+ * only changes the scene graph in O(width + height). The views of the removed rows and columns wait in a pool.
+ */
+public class GridBoardView implements BoardListener {
+
+    private final GridPane gridPane;
+    private final Deque<TileView> pool = new ArrayDeque<>();
+    private TileView[][] tileViews;
+
+    public GridBoardView(GridPane gridPane) {
+        this.gridPane = gridPane;
+        this.tileViews = new TileView[0][0];
+    }
+
+    /**
+     * Redraw the view of a tile
+     * @param tile that has changed
+     */
+    @Override
+    public void tileChanged(Tile tile) {
+        tileViews[tile.getX()][tile.getY()].draw(tile);
+    }
+
+    /**
+     * Resize the views of the GridPane to the board and redraw all of them when the tiles of the board are replaced
+     * @param board that has changed
+     */
+    @Override
+    public void boardChanged(Board board) {
+        int width = board.getWidth();
+        int height = board.getHeight();
+        resize(width, height);
+        resizeConstraints(width, height);
+        SpriteCache.prescale(Math.max(600.0 / height, 600.0 / width));
+
+        for (int i = 0; i < width; i++) {
+            for (int j = 0; j < height; j++) {
+                TileView tileView = tileViews[i][j];
+                tileView.setHeight(600.0 / height);
+                tileView.setWidth(600.0 / width);
+                tileView.draw(board.getTile(i, j));
+            }
+        }
+    }
+
+    /**
+     * Remove the views outside of the new size and add the views of the new rows and columns,
+     * each list of children is changed once
+     */
+    private void resize(int width, int height) {
+        int oldWidth = tileViews.length;
+        int oldHeight = oldWidth == 0 ? 0 : tileViews[0].length;
+        TileView[][] resized = new TileView[width][height];
+        Set<Node> removed = new HashSet<>();
+        List<Node> added = new ArrayList<>();
+
+        for (int i = 0; i < oldWidth; i++) {
+            for (int j = 0; j < oldHeight; j++) {
+                if (i < width && j < height) {
+                    resized[i][j] = tileViews[i][j];
+                } else {
+                    removed.add(tileViews[i][j]);
+                    pool.push(tileViews[i][j]);
+                }
+            }
+        }
+        for (int i = 0; i < width; i++) {
+            for (int j = 0; j < height; j++) {
+                if (resized[i][j] == null) {
+                    TileView tileView = pool.isEmpty() ? new TileView() : pool.pop();
+                    GridPane.setConstraints(tileView, i, j);
+                    resized[i][j] = tileView;
+                    added.add(tileView);
+                }
+            }
+        }
+
+        if (!removed.isEmpty())
+            gridPane.getChildren().removeAll(removed);
+        if (!added.isEmpty())
+            gridPane.getChildren().addAll(added);
+        tileViews = resized;
+    }
+
+    /**
+     * Give the GridPane one constraint per row and per column, which share its size equally
+     */
+    private void resizeConstraints(int width, int height) {
+        List<RowConstraints> rows = gridPane.getRowConstraints();
+        if (rows.size() > height)
+            rows.subList(height, rows.size()).clear();
+        while (rows.size() < height) {
+            RowConstraints row = new RowConstraints();
+            row.setMinHeight(Region.USE_PREF_SIZE);
+            row.setMaxHeight(Region.USE_PREF_SIZE);
+            row.setValignment(VPos.CENTER);
+            row.setVgrow(Priority.SOMETIMES);
+            rows.add(row);
+        }
+        for (RowConstraints row : rows)
+            row.setPercentHeight(100.0 / height);
+
+        List<ColumnConstraints> columns = gridPane.getColumnConstraints();
+        if (columns.size() > width)
+            columns.subList(width, columns.size()).clear();
+        while (columns.size() < width) {
+            ColumnConstraints column = new ColumnConstraints();
+            column.setMinWidth(Region.USE_PREF_SIZE);
+            column.setMaxWidth(Region.USE_PREF_SIZE);
+            column.setHalignment(HPos.CENTER);
+            column.setHgrow(Priority.SOMETIMES);
+            columns.add(column);
+        }
+        for (ColumnConstraints column : columns)
+            column.setPercentWidth(100.0 / width);
+    }
+}
@@ -0,0 +1,64 @@
+package view;
+
+import lombok.Getter;
+import model.Tile;
+
+/**
+ * Enum that represents the images which can be displayed on a tile
+ */
+public enum Sprite {
+    ADVENTURER("images/adventurer.png"),
+    ADVENTURER_BIN("images/adventurer_bin.png"),
+    ADVENTURER_MONSTER("images/adventurer_monster.png"),
+    ADVENTURER_PORTAL("images/adventurer_portal.png"),
+    ADVENTURER_SINK("images/adventurer_sink.png"),
+    ADVENTURER_WIND("images/adventurer_wind.png"),
+    ADVENTURER_WIND_BIN("images/adventurer_wind_bin.png"),
+    BIN("images/bin.png"),
+    BIN_WIND("images/bin_wind.png"),
+    MONSTER("images/monster.png"),
+    PORTAL("images/portal.png"),
+    SINK("images/sink.png"),
+    WIND("images/wind.png");
+
+    @Getter
+    private final String path;
+
+    Sprite(String path) {
+        this.path = path;
+    }
+
+    /**
+     * Get the sprite of a tile
+     * @param tile to display
+     * @return the sprite of the tile, or null if the tile is empty
+     */
+    public static Sprite of(Tile tile) {
+        //Cas avec les cases personnages
+        if (tile.isCharacter()) {
+            if (tile.isPortal())
+                return ADVENTURER_PORTAL;
+            else if (tile.isMonster())
+                return ADVENTURER_MONSTER;
+            else if (tile.isCrevasse())
+                return ADVENTURER_SINK;
+            else if (tile.isBadSmelling())
+                return tile.isWindy() ? ADVENTURER_WIND_BIN : ADVENTURER_BIN;
+            else if (tile.isWindy())
+                return ADVENTURER_WIND;
+            else
+                return ADVENTURER;
+        }
+        else if (tile.isMonster())
+            return MONSTER;
+        else if (tile.isCrevasse())
+            return SINK;
+        else if (tile.isPortal())
+            return PORTAL;
+        else if (tile.isBadSmelling())
+            return tile.isWindy() ? BIN_WIND : BIN;
+        else if (tile.isWindy())
+            return WIND;
+        return null;
+    }
+}
@@ -0,0 +1,147 @@
+package view;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.image.WritablePixelFormat;
+import javafx.scene.paint.ImagePattern;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide cache of the sprites, every sprite is loaded and decoded once and shared by all the tiles.
+ * The sprites can be pre-scaled to the size of the tiles when a level changes or the view is zoomed: the decoded
+ * images are scaled in memory, never read again, and the scaled images of the last MAX_SIZES sizes are kept,
+ * so going back to a recent size costs nothing. The patterns are only built again when the size changes.
+ * This class must be used on the JavaFX application thread.
+ */
+public final class SpriteCache {
+    private static final int MAX_SIZES = 8;
+
+    private static final Image[] sources = new Image[Sprite.values().length];
+    /**
+     * Scaled images of the recent sizes in pixels, from the least to the most recently used, 0 for the sources
+     */
+    private static final Map<Integer, Image[]> scaled = new LinkedHashMap<>(16, 0.75f, true);
+    private static final ImagePattern[] patterns = new ImagePattern[Sprite.values().length];
+    private static Image[] images = sizeImages(0);
+    private static int tileSize;
+
+    private SpriteCache() {
+    }
+
+    /**
+     * Get the image of a sprite
+     * @param sprite to get
+     * @return the image of the sprite, at the size of the tiles if it has been pre-scaled
+     */
+    public static Image getImage(Sprite sprite) {
+        Image image = images[sprite.ordinal()];
+        if (image == null) {
+            Image source = getSource(sprite);
+            image = tileSize > 0 && tileSize < source.getWidth() ? scale(source, tileSize) : source;
+            images[sprite.ordinal()] = image;
+        }
+        return image;
+    }
+
+    /**
+     * Get the pattern used to fill a tile with a sprite
+     * @param sprite to get, can be null
+     * @return the pattern of the sprite, or null if the sprite is null
+     */
+    public static ImagePattern getPattern(Sprite sprite) {
+        if (sprite == null)
+            return null;
+        ImagePattern pattern = patterns[sprite.ordinal()];
+        if (pattern == null) {
+            pattern = new ImagePattern(getImage(sprite));
+            patterns[sprite.ordinal()] = pattern;
+        }
+        return pattern;
+    }
+
+    /**
+     * Pre-scale the sprites to the size of the tiles, nothing is done if the size in pixels has not changed
+     * @param size of the tiles in pixels, 0 to keep the size of the image files
+     */
+    public static void prescale(double size) {
+        int pixels = (int) Math.ceil(size);
+        if (pixels == tileSize)
+            return;
+        tileSize = pixels;
+        images = sizeImages(pixels);
+        Arrays.fill(patterns, null);
+    }
+
+    /**
+     * Get the scaled images of a size, the least recently used size is forgotten if there are too many of them
+     */
+    private static Image[] sizeImages(int pixels) {
+        Image[] sizeImages = scaled.computeIfAbsent(pixels, key -> new Image[Sprite.values().length]);
+        if (scaled.size() > MAX_SIZES) {
+            Iterator<Integer> eldest = scaled.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+        return sizeImages;
+    }
+
+    /**
+     * Get the decoded image of a sprite, loaded from its file the first time
+     */
+    private static Image getSource(Sprite sprite) {
+        Image source = sources[sprite.ordinal()];
+        if (source == null) {
+            source = new Image(sprite.getPath());
+            sources[sprite.ordinal()] = source;
+        }
+        return source;
+    }
+
+    /**
+     * Scale down an image in memory, every pixel is the mean of the pixels of the source it covers
+     * @param source image to scale
+     * @param size in pixels of the scaled image, smaller than the source
+     * @return the scaled image
+     */
+    private static Image scale(Image source, int size) {
+        int width = (int) source.getWidth();
+        int height = (int) source.getHeight();
+        WritablePixelFormat<IntBuffer> format = PixelFormat.getIntArgbPreInstance();
+        int[] pixels = new int[width * height];
+        source.getPixelReader().getPixels(0, 0, width, height, format, pixels, 0, width);
+
+        // The colors are premultiplied by the alpha, so the transparent pixels do not darken the mean
+        int[] result = new int[size * size];
+        for (int y = 0; y < size; y++) {
+            int fromY = y * height / size;
+            int toY = Math.max(fromY + 1, (y + 1) * height / size);
+            for (int x = 0; x < size; x++) {
+                int fromX = x * width / size;
+                int toX = Math.max(fromX + 1, (x + 1) * width / size);
+                long alpha = 0;
+                long red = 0;
+                long green = 0;
+                long blue = 0;
+                for (int sourceY = fromY; sourceY < toY; sourceY++) {
+                    for (int sourceX = fromX; sourceX < toX; sourceX++) {
+                        int pixel = pixels[sourceY * width + sourceX];
+                        alpha += pixel >>> 24;
+                        red += pixel >>> 16 & 0xFF;
+                        green += pixel >>> 8 & 0xFF;
+                        blue += pixel & 0xFF;
+                    }
+                }
+                long count = (long) (toY - fromY) * (toX - fromX);
+                result[y * size + x] = (int) (alpha / count << 24 | red / count << 16 | green / count << 8 | blue / count);
+            }
+        }
+        WritableImage image = new WritableImage(size, size);
+        image.getPixelWriter().setPixels(0, 0, size, size, format, result, 0, size);
+        return image;
+    }
+}
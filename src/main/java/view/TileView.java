@@ -0,0 +1,40 @@
+package view;
+
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.Rectangle;
+import model.Tile;
+
+/**
+ * Class that displays a tile of the board
+ */
+public class TileView extends Rectangle {
+
+    /**
+     * TileView constructor
+     */
+    public TileView() {
+        this.setFill(null);
+        this.setStroke(Paint.valueOf("black"));
+    }
+
+    /**
+     * Draw objects of the tile if an object is present
+     * @param tile to display
+     */
+    public void draw(Tile tile) {
+        setFill(SpriteCache.getPattern(Sprite.of(tile)));
+
+        // Discovered tiles are green, boundary tiles are blue
+        if (tile.isDiscovered()) {
+            setStroke(Paint.valueOf("green"));
+            setStrokeWidth(3);
+        } else if (tile.isBoundary()) {
+            setStroke(Paint.valueOf("blue"));
+            setStrokeWidth(3);
+        } else {
+            // A reused view may still have the border of another tile
+            setStroke(Paint.valueOf("black"));
+            setStrokeWidth(1);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package view;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.util.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import model.Board;
+import model.Tile;
+import java.util.List;
+
+/**
+ * Class that animates the way of the character, one tile after the other, on a layer above the view of the board.
+ * The duration of a tile shrinks on long ways, so a whole way never lasts more than MAX_MILLIS.
+ * The tiles are placed like the ones of the viewport of the view if it has one, otherwise the whole board fills the layer.
+ */
+public class TrailAnimation {
+    public static final double TILE_MILLIS = 80;
+    public static final double MAX_MILLIS = 1500;
+
+    @Getter
+    private final Pane layer;
+    private final Rectangle marker;
+    @Getter @Setter
+    private Viewport viewport;
+    private Timeline timeline;
+
+    public TrailAnimation() {
+        layer = new Pane();
+        layer.setMouseTransparent(true);
+        marker = new Rectangle();
+        marker.setFill(Color.rgb(255, 215, 0, 0.6));
+    }
+
+    /**
+     * Play the animation of a way
+     * @param board on which the character moves
+     * @param trail tiles the character has gone through, in order
+     * @param onFinished called once the character has reached the last tile of the way
+     */
+    public void play(Board board, List<Tile> trail, Runnable onFinished) {
+        stop();
+        double tileWidth = viewport != null ? viewport.getTileSize() : layer.getWidth() / board.getWidth();
+        double tileHeight = viewport != null ? viewport.getTileSize() : layer.getHeight() / board.getHeight();
+        marker.setWidth(tileWidth);
+        marker.setHeight(tileHeight);
+        layer.getChildren().setAll(marker);
+
+        double tileMillis = Math.min(TILE_MILLIS, MAX_MILLIS / trail.size());
+        timeline = new Timeline();
+        for (int i = 0; i < trail.size(); i++) {
+            Tile tile = trail.get(i);
+            timeline.getKeyFrames().add(new KeyFrame(Duration.millis(i * tileMillis), event -> {
+                if (viewport != null) {
+                    marker.setVisible(viewport.isVisible(tile.getX(), tile.getY()));
+                    marker.setX(viewport.toScreenX(tile.getX()));
+                    marker.setY(viewport.toScreenY(tile.getY()));
+                } else {
+                    marker.setX(tile.getX() * tileWidth);
+                    marker.setY(tile.getY() * tileHeight);
+                }
+            }));
+        }
+        timeline.getKeyFrames().add(new KeyFrame(Duration.millis(trail.size() * tileMillis)));
+        timeline.setOnFinished(event -> {
+            layer.getChildren().clear();
+            onFinished.run();
+        });
+        timeline.play();
+    }
+
+    /**
+     * Stop the animation, without calling its end
+     */
+    public void stop() {
+        if (timeline != null)
+            timeline.stop();
+        layer.getChildren().clear();
+    }
+}
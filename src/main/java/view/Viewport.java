@@ -0,0 +1,203 @@
+package view;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Class that represents the part of a board shown on the screen: the size of the tiles in pixels and the position
+ * of the screen on the board, in pixels from the top left corner of the board.
+ * The tiles never get smaller than MIN_TILE_SIZE, so the number of visible tiles is bounded by the size of the screen
+ * and not by the size of the board. The viewport can be zoomed and moved, or follow the character.
+ */
+public class Viewport {
+    public static final double MIN_TILE_SIZE = 4;
+    public static final double MAX_TILE_SIZE = 64;
+    /**
+     * Part of the screen, on every side, the character has to enter before the viewport follows it
+     */
+    public static final double FOLLOW_MARGIN = 0.2;
+
+    @Getter
+    private final double screenWidth;
+    @Getter
+    private final double screenHeight;
+    @Getter
+    private double tileSize;
+    @Getter
+    private double offsetX;
+    @Getter
+    private double offsetY;
+    @Getter @Setter
+    private boolean following = true;
+    private int boardWidth;
+    private int boardHeight;
+
+    public Viewport(double screenWidth, double screenHeight) {
+        this.screenWidth = screenWidth;
+        this.screenHeight = screenHeight;
+    }
+
+    /**
+     * Change the size of the board. If the whole board was shown, the new board is shown whole too,
+     * otherwise the tiles keep their size if it is still allowed.
+     * @param boardWidth new width of the board
+     * @param boardHeight new height of the board
+     */
+    public void resize(int boardWidth, int boardHeight) {
+        boolean fitted = tileSize <= getMinTileSize();
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        tileSize = clampTileSize(fitted ? 0 : tileSize);
+        clampOffsets();
+    }
+
+    /**
+     * Get the smallest size of the tiles, the one which fits the whole board on the screen unless it is too small
+     * @return the smallest size of the tiles in pixels
+     */
+    public double getMinTileSize() {
+        return Math.max(MIN_TILE_SIZE, Math.min(screenWidth / boardWidth, screenHeight / boardHeight));
+    }
+
+    /**
+     * Zoom around a point of the screen, which stays over the same point of the board
+     * @param factor by which the size of the tiles is multiplied
+     * @param screenX of the point
+     * @param screenY of the point
+     * @return true if the viewport has changed
+     */
+    public boolean zoom(double factor, double screenX, double screenY) {
+        double size = clampTileSize(tileSize * factor);
+        if (size == tileSize)
+            return false;
+        offsetX = (offsetX + screenX) * size / tileSize - screenX;
+        offsetY = (offsetY + screenY) * size / tileSize - screenY;
+        tileSize = size;
+        clampOffsets();
+        return true;
+    }
+
+    /**
+     * Move the viewport by a number of pixels, which stops following the character
+     * @param dx pixels to move the board to the right
+     * @param dy pixels to move the board down
+     */
+    public void pan(double dx, double dy) {
+        following = false;
+        offsetX -= dx;
+        offsetY -= dy;
+        clampOffsets();
+    }
+
+    /**
+     * Move the viewport so a tile is at the center of the screen
+     * @param x of the tile
+     * @param y of the tile
+     */
+    public void centerOn(int x, int y) {
+        offsetX = (x + 0.5) * tileSize - screenWidth / 2;
+        offsetY = (y + 0.5) * tileSize - screenHeight / 2;
+        clampOffsets();
+    }
+
+    /**
+     * Center the viewport on the tile of the character if it is following it
+     * and the tile is out of the screen or in its margins
+     * @param x of the tile of the character
+     * @param y of the tile of the character
+     * @return true if the viewport has moved
+     */
+    public boolean follow(int x, int y) {
+        if (!following)
+            return false;
+        double left = x * tileSize - offsetX;
+        double top = y * tileSize - offsetY;
+        double marginX = screenWidth * FOLLOW_MARGIN;
+        double marginY = screenHeight * FOLLOW_MARGIN;
+        if (left >= marginX && left + tileSize <= screenWidth - marginX
+                && top >= marginY && top + tileSize <= screenHeight - marginY)
+            return false;
+        double oldX = offsetX;
+        double oldY = offsetY;
+        centerOn(x, y);
+        return offsetX != oldX || offsetY != oldY;
+    }
+
+    /**
+     * Get the first visible column
+     * @return x of the first visible tile
+     */
+    public int getFirstX() {
+        return (int) (offsetX / tileSize);
+    }
+
+    /**
+     * Get the last visible column
+     * @return x of the last visible tile
+     */
+    public int getLastX() {
+        return Math.min(boardWidth, (int) Math.ceil((offsetX + screenWidth) / tileSize)) - 1;
+    }
+
+    /**
+     * Get the first visible row
+     * @return y of the first visible tile
+     */
+    public int getFirstY() {
+        return (int) (offsetY / tileSize);
+    }
+
+    /**
+     * Get the last visible row
+     * @return y of the last visible tile
+     */
+    public int getLastY() {
+        return Math.min(boardHeight, (int) Math.ceil((offsetY + screenHeight) / tileSize)) - 1;
+    }
+
+    /**
+     * Check if a tile is visible, even partly
+     * @param x of the tile
+     * @param y of the tile
+     * @return true if the tile is on the screen
+     */
+    public boolean isVisible(int x, int y) {
+        return x >= getFirstX() && x <= getLastX() && y >= getFirstY() && y <= getLastY();
+    }
+
+    /**
+     * Get the position of a column on the screen
+     * @param x of the column
+     * @return position of the left side of the column in pixels
+     */
+    public double toScreenX(int x) {
+        return x * tileSize - offsetX;
+    }
+
+    /**
+     * Get the position of a row on the screen
+     * @param y of the row
+     * @return position of the top side of the row in pixels
+     */
+    public double toScreenY(int y) {
+        return y * tileSize - offsetY;
+    }
+
+    /**
+     * Keep a size of the tiles between the smallest one and MAX_TILE_SIZE
+     * @param size of the tiles in pixels
+     * @return the allowed size
+     */
+    private double clampTileSize(double size) {
+        double min = getMinTileSize();
+        return Math.min(Math.max(size, min), Math.max(MAX_TILE_SIZE, min));
+    }
+
+    /**
+     * Keep the screen on the board
+     */
+    private void clampOffsets() {
+        offsetX = Math.max(0, Math.min(offsetX, boardWidth * tileSize - screenWidth));
+        offsetY = Math.max(0, Math.min(offsetY, boardHeight * tileSize - screenHeight));
+    }
+}